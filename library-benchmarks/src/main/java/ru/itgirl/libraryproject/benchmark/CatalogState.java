@@ -0,0 +1,117 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.itgirl.libraryproject.LibraryProjectApplication;
+import ru.itgirl.libraryproject.service.CatalogNameFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    public static final String DATASOURCE_URL = "benchmark.datasource.url";
+    public static final String DATASOURCE_USERNAME = "benchmark.datasource.username";
+    public static final String DATASOURCE_PASSWORD = "benchmark.datasource.password";
+
+    private static final int LOOKUP_KEYS = 1024;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    // The Spring caches are always off; -p secondLevelCache=true reports the Hibernate-cached case separately
+    @Param({"false"})
+    public boolean secondLevelCache;
+
+    private EmbeddedPostgres embeddedPostgres;
+    private ConfigurableApplicationContext context;
+    private List<String> bookNames;
+    private List<String> authorSurnames;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        start("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+    }
+
+    public void start(String... applicationArgs) throws IOException {
+        String url = System.getProperty(DATASOURCE_URL);
+        String username = System.getProperty(DATASOURCE_USERNAME, "postgres");
+        String password = System.getProperty(DATASOURCE_PASSWORD, "");
+        if (url == null) {
+            embeddedPostgres = EmbeddedPostgres.builder()
+                    .setLocaleConfig("lc-ctype", "C.UTF-8")
+                    .start();
+            url = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--server.port=0",
+                "--spring.cache.type=none",
+                "--logging.level.ru.itgirl=WARN"));
+        args.addAll(List.of(applicationArgs));
+        context = new SpringApplicationBuilder(LibraryProjectApplication.class).run(args.toArray(String[]::new));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate);
+        // Seeded rows bypass the application, so the lookup filter is rebuilt from the table
+        context.getBean(CatalogNameFilter.class).rebuild();
+        bookNames = jdbcTemplate.queryForList("select name from book order by random() limit ?", String.class, LOOKUP_KEYS);
+        authorSurnames = jdbcTemplate.queryForList("select surname from author order by random() limit ?", String.class, LOOKUP_KEYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    public int getPort() {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public String nextBookName() {
+        return bookNames.get(Math.floorMod(cursor.getAndIncrement(), bookNames.size()));
+    }
+
+    public String nextAuthorSurname() {
+        return authorSurnames.get(Math.floorMod(cursor.getAndIncrement(), authorSurnames.size()));
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Integer books = jdbcTemplate.queryForObject("select count(*) from book", Integer.class);
+        int missing = catalogSize - (books == null ? 0 : books);
+        if (missing <= 0) {
+            return;
+        }
+        int authors = Math.max(missing / 10, 1);
+        jdbcTemplate.update("insert into author(name, surname) select 'Автор', 'Автор-' || md5(random()::text) "
+                + "from generate_series(1, ?)", authors);
+        jdbcTemplate.update("insert into book(name, genre_id) select 'Книга-' || md5(random()::text), 1 + g % 4 "
+                + "from generate_series(1, ?) g", missing);
+        jdbcTemplate.update("insert into author_book(book_id, author_id) "
+                + "select b.id, a.id from (select id, row_number() over (order by id) as n from book where name like 'Книга-%') b "
+                + "join (select id, row_number() over (order by id) - 1 as n from author where surname like 'Автор-%') a "
+                + "on a.n = b.n % ? where not exists (select 1 from author_book ab where ab.book_id = b.id)", authors);
+        jdbcTemplate.execute("analyze");
+    }
+}
@@ -0,0 +1,70 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.model.Author;
+import ru.itgirl.libraryproject.model.Book;
+import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.service.CatalogDtoMapper;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Entity-to-DTO conversion alone, for a book with N authors and an author with N books. The graphs are detached
+// entities built once in setUp, so no transaction, proxy, cache or database is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int associations;
+
+    private Book book;
+    private Author author;
+
+    @Setup
+    public void setUp() {
+        Genre[] genres = {
+                Genre.builder().id(1L).name("Рассказ").version(0L).build(),
+                Genre.builder().id(2L).name("Роман").version(0L).build()
+        };
+
+        Set<Author> authors = new HashSet<>();
+        for (long i = 1; i <= associations; i++) {
+            authors.add(Author.builder().id(i).name("Имя " + i).surname("Фамилия " + i).version(0L).build());
+        }
+        book = Book.builder().id(1L).name("Конвертация").genre(genres[0]).authors(authors).version(0L).build();
+
+        Set<Book> books = new HashSet<>();
+        for (long i = 1; i <= associations; i++) {
+            books.add(Book.builder().id(i).name("Книга " + i).genre(genres[(int) (i % 2)]).version(0L).build());
+        }
+        author = Author.builder().id(1L).name("Лев").surname("Конвертация").books(books).version(0L).build();
+    }
+
+    @Benchmark
+    public BookDto bookToDto() {
+        return CatalogDtoMapper.bookToDto(book);
+    }
+
+    @Benchmark
+    public AuthorDto authorToDto() {
+        return CatalogDtoMapper.authorToDto(author);
+    }
+}
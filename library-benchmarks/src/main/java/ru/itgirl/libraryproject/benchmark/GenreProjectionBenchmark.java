@@ -0,0 +1,76 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.GenreDto;
+import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.repository.GenreRepository;
+import ru.itgirl.libraryproject.service.GenreService;
+
+import java.util.concurrent.TimeUnit;
+
+// getGenreById reads one row per book and author from a single projection query. The entity variant walks the
+// genre's books and their authors with the second-level cache cleared, as the service did before the projection.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GenreProjectionBenchmark {
+
+    private GenreService genreService;
+    private GenreRepository genreRepository;
+    private TransactionTemplate transactionTemplate;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup
+    public void setUp(CatalogState catalog) {
+        genreService = catalog.getBean(GenreService.class);
+        genreRepository = catalog.getBean(GenreRepository.class);
+        transactionTemplate = catalog.getBean(TransactionTemplate.class);
+        entityManagerFactory = catalog.getBean(EntityManagerFactory.class);
+    }
+
+    @Benchmark
+    public GenreDto projection() {
+        return genreService.getGenreById(1L);
+    }
+
+    @Benchmark
+    public GenreDto entities() {
+        entityManagerFactory.getCache().evictAll();
+        return transactionTemplate.execute(status -> {
+            Genre genre = genreRepository.findById(1L).orElseThrow();
+            return GenreDto.builder()
+                    .id(genre.getId())
+                    .name(genre.getName())
+                    .books(genre.getBooks().stream()
+                            .map(book -> BookDto.builder()
+                                    .name(book.getName())
+                                    .id(book.getId())
+                                    .authors(book.getAuthors().stream()
+                                            .map(author -> AuthorDto.builder()
+                                                    .name(author.getName())
+                                                    .surname(author.getSurname())
+                                                    .id(author.getId())
+                                                    .build())
+                                            .toList())
+                                    .build())
+                            .toList())
+                    .build();
+        });
+    }
+}
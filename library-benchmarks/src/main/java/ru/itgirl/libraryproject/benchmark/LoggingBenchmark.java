@@ -0,0 +1,83 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.PageDto;
+import ru.itgirl.libraryproject.service.BookService;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Request latency of service calls with every entity line written synchronously (sync) and with the
+// async-logging profile (async); the console is redirected to target/logging-benchmark-<mode>.log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    private final CatalogState catalog = new CatalogState();
+    private PrintStream console;
+    private PrintStream logFile;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        Path file = Files.createDirectories(Path.of("target")).resolve("logging-benchmark-" + mode + ".log");
+        console = System.out;
+        logFile = new PrintStream(new FileOutputStream(file.toFile()), true, StandardCharsets.UTF_8);
+        System.setOut(logFile);
+        catalog.catalogSize = 1000;
+        if (mode.equals("async")) {
+            catalog.start("--spring.profiles.active=async-logging",
+                    "--logging.level.ru.itgirl.libraryproject.service=INFO");
+        } else {
+            catalog.start("--logging.level.ru.itgirl.libraryproject.service=DEBUG");
+        }
+        bookService = catalog.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        try {
+            catalog.stop();
+        } finally {
+            System.setOut(console);
+            logFile.close();
+        }
+    }
+
+    @Benchmark
+    public BookDto bookByName() {
+        return bookService.getBookByNameV1(catalog.nextBookName());
+    }
+
+    @Benchmark
+    public PageDto<BookDto> booksPage() {
+        return bookService.getBooksPage(null, 20);
+    }
+}
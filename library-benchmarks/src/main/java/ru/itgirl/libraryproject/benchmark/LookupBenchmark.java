@@ -0,0 +1,66 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LookupBenchmark {
+
+    private BookService bookService;
+    private AuthorService authorService;
+
+    @Setup
+    public void setUp(CatalogState catalog) {
+        bookService = catalog.getBean(BookService.class);
+        authorService = catalog.getBean(AuthorService.class);
+    }
+
+    @Benchmark
+    public BookDto bookByNameV1(CatalogState catalog) {
+        return bookService.getBookByNameV1(catalog.nextBookName());
+    }
+
+    @Benchmark
+    public BookDto bookByNameV2(CatalogState catalog) {
+        return bookService.getBookByNameV2(catalog.nextBookName());
+    }
+
+    @Benchmark
+    public BookDto bookByNameV3(CatalogState catalog) {
+        return bookService.getBookByNameV3(catalog.nextBookName());
+    }
+
+    @Benchmark
+    public AuthorDto authorBySurnameV1(CatalogState catalog) {
+        return authorService.getBySurnameV1(catalog.nextAuthorSurname());
+    }
+
+    @Benchmark
+    public AuthorDto authorBySurnameV2(CatalogState catalog) {
+        return authorService.getBySurnameV2(catalog.nextAuthorSurname());
+    }
+
+    @Benchmark
+    public AuthorDto authorBySurnameV3(CatalogState catalog) {
+        return authorService.getBySurnameV3(catalog.nextAuthorSurname());
+    }
+}
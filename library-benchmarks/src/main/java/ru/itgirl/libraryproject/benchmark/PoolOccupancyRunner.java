@@ -0,0 +1,104 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-model HTTP load on the Freemarker pages with Open-Session-In-View on and off. With OSIV the connection stays
+// checked out until the page is rendered; without it, only for the service transaction. Compares how long a
+// connection is held per checkout and how many requests the same small pool serves.
+public class PoolOccupancyRunner {
+
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString("InnaVol:Password1".getBytes(StandardCharsets.UTF_8));
+
+    private static final List<String> PATHS = List.of("/books?size=100", "/authors?size=100");
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = List.of(System.getProperty("pool.modes", "osiv,explicit").split(","));
+        int concurrency = Integer.getInteger("pool.concurrency", 50);
+        int poolSize = Integer.getInteger("pool.size", 5);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("pool.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("pool.duration", 30));
+        int catalogSize = Integer.getInteger("pool.catalogSize", 10_000);
+
+        List<String> results = new ArrayList<>();
+        for (String mode : modes) {
+            CatalogState catalog = new CatalogState();
+            catalog.catalogSize = catalogSize;
+            catalog.start("--spring.jpa.open-in-view=" + mode.equals("osiv"),
+                    "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                    "--spring.datasource.hikari.pool-name=benchmark");
+            try {
+                run(catalog, concurrency, warmup);
+                Timer usage = catalog.getBean(MeterRegistry.class).get("hikaricp.connections.usage")
+                        .tag("pool", "benchmark").timer();
+                long checkouts = usage.count();
+                double heldMs = usage.totalTime(TimeUnit.MILLISECONDS);
+                long requests = run(catalog, concurrency, duration);
+                checkouts = usage.count() - checkouts;
+                heldMs = usage.totalTime(TimeUnit.MILLISECONDS) - heldMs;
+                results.add(String.format("%-8s %8.0f req/s  %6.2f ms held per checkout  %6.2f ms held per request  "
+                                + "pool busy %5.1f%%", mode, requests / (double) duration.toSeconds(),
+                        heldMs / Math.max(checkouts, 1), heldMs / Math.max(requests, 1),
+                        100 * heldMs / (poolSize * (double) duration.toMillis())));
+            } finally {
+                catalog.stop();
+            }
+        }
+        System.out.printf("%nconcurrency %d, pool of %d connections, %ds per mode%n", concurrency, poolSize,
+                duration.toSeconds());
+        results.forEach(System.out::println);
+    }
+
+    private static long run(CatalogState catalog, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String baseUrl = "http://localhost:" + catalog.getPort();
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong completed = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int first = i;
+            futures.add(workers.submit(() -> {
+                int request = first;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + PATHS.get(request++ % PATHS.size())))
+                            .header("Authorization", AUTHORIZATION)
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                    try {
+                        if (client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            completed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        // counted as not completed
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        return completed.get();
+    }
+}
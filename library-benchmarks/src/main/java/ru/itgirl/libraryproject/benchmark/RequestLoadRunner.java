@@ -0,0 +1,139 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Closed-model HTTP load: `load.concurrency` clients send requests back to back against the application started
+// once per thread mode, and throughput and latency percentiles are compared at the end
+public class RequestLoadRunner {
+
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString("InnaVol:Password1".getBytes(StandardCharsets.UTF_8));
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = List.of(System.getProperty("load.modes", "platform,virtual").split(","));
+        int concurrency = Integer.getInteger("load.concurrency", 400);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        int catalogSize = Integer.getInteger("load.catalogSize", 10_000);
+
+        List<String> results = new ArrayList<>();
+        for (String mode : modes) {
+            boolean virtual = mode.equals("virtual");
+            if (virtual && Runtime.version().feature() < 21) {
+                results.add(String.format("%-9s skipped: needs Java 21, running on Java %d", mode,
+                        Runtime.version().feature()));
+                continue;
+            }
+            if (virtual && !builtForJava21()) {
+                results.add(String.format("%-9s skipped: library-project was not built with the java21 profile", mode));
+                continue;
+            }
+            CatalogState catalog = new CatalogState();
+            catalog.catalogSize = catalogSize;
+            catalog.start("--library.threads.virtual=" + virtual);
+            try {
+                // One client first: with the credential cache still empty, `concurrency` clients would start with
+                // as many simultaneous BCrypt checks and measure those instead of the catalog
+                run(catalog, 1, Duration.ofSeconds(1));
+                run(catalog, concurrency, warmup);
+                results.add(String.format("%-9s %s", mode, run(catalog, concurrency, duration)));
+            } finally {
+                catalog.stop();
+            }
+        }
+        System.out.printf("%nconcurrency %d, %ds per mode%n", concurrency, duration.toSeconds());
+        results.forEach(System.out::println);
+    }
+
+    private static String run(CatalogState catalog, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String baseUrl = "http://localhost:" + catalog.getPort();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> new Worker().run(client, catalog, baseUrl, deadline)));
+        }
+        List<Long> latencies = new ArrayList<>();
+        long errors = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            latencies.addAll(worker.latencies);
+            errors += worker.errors;
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        latencies.sort(null);
+        return String.format("%8.0f req/s  p50 %6.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d",
+                latencies.size() / (double) duration.toSeconds(), percentile(latencies, 0.50),
+                percentile(latencies, 0.99), percentile(latencies, 1.0), errors);
+    }
+
+    private static boolean builtForJava21() {
+        try {
+            Class.forName("ru.itgirl.libraryproject.config.VirtualThreadConfig");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private static class Worker {
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        private long errors;
+
+        // Alternates a JSON lookup with a Freemarker page, both backed by blocking JDBC
+        Worker run(HttpClient client, CatalogState catalog, String baseUrl, long deadline) {
+            int request = 0;
+            while (System.nanoTime() < deadline) {
+                String path = request++ % 2 == 0
+                        ? "/book?name=" + URLEncoder.encode(catalog.nextBookName(), StandardCharsets.UTF_8)
+                        : "/books?size=20";
+                HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .header("Authorization", AUTHORIZATION)
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                long started = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors++;
+                        continue;
+                    }
+                } catch (Exception e) {
+                    errors++;
+                    continue;
+                }
+                latencies.add(System.nanoTime() - started);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.itgirl.libraryproject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import ru.itgirl.libraryproject.config.MessageConverterConfig;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.GenreDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    public enum Format {
+        JSON, SMILE, CBOR
+    }
+
+    // Reported next to the scores as the size of one serialized response
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public Format format;
+
+    // 50 is a typical genre page, 5000 the worst case of a genre holding a large imported catalog
+    @Param({"50", "5000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+
+    private ObjectMapper mapper;
+
+    private GenreDto genre;
+
+    private byte[] payload;
+
+    // Only the Jackson setup of the application, with its mappers for every format, and no database
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(JacksonAutoConfiguration.class, MessageConverterConfig.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--logging.level.root=WARN");
+        mapper = switch (format) {
+            case JSON -> context.getBean(ObjectMapper.class);
+            case SMILE -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            case CBOR -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+        };
+        List<BookDto> bookDtos = new ArrayList<>();
+        for (long i = 1; i <= books; i++) {
+            List<AuthorDto> authors = List.of(
+                    new AuthorDto(i * 2, "Имя " + i, "Фамилия " + i, null),
+                    new AuthorDto(i * 2 + 1, "Имя " + (i + 1), "Фамилия " + (i + 1), null));
+            bookDtos.add(new BookDto(i, "Книга номер " + i, "Роман", authors));
+        }
+        genre = new GenreDto(1L, "Роман", bookDtos);
+        payload = mapper.writeValueAsBytes(genre);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize size) throws IOException {
+        byte[] body = mapper.writeValueAsBytes(genre);
+        size.bytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public byte[] serializeGzip(PayloadSize size) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            mapper.writeValue(gzip, genre);
+        }
+        byte[] body = output.toByteArray();
+        size.bytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public GenreDto deserialize() throws IOException {
+        return mapper.readValue(payload, GenreDto.class);
+    }
+}
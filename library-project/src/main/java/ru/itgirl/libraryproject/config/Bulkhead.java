@@ -0,0 +1,82 @@
+package ru.itgirl.libraryproject.config;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// A fixed pool with a bounded queue for one class of work. A full queue rejects immediately, and the timeout covers
+// queueing plus execution: a task that times out while still queued is never started. Work that must not be reported
+// as failed once it has started, such as writes, times out only while queued and then runs to completion.
+public class Bulkhead {
+
+    private final String name;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration timeout;
+
+    private final boolean timeoutCoversExecution;
+
+    public Bulkhead(String name, int threads, int queueCapacity, Duration timeout) {
+        this(name, threads, queueCapacity, timeout, true);
+    }
+
+    public Bulkhead(String name, int threads, int queueCapacity, Duration timeout, boolean timeoutCoversExecution) {
+        this.name = name;
+        this.timeout = timeout;
+        this.timeoutCoversExecution = timeoutCoversExecution;
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"),
+                (task, executor) -> {
+                    throw new RejectedExecutionException("Bulkhead " + name + " is full");
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Either the task starts or the queue timeout fires, never both
+        AtomicBoolean claimed = new AtomicBoolean();
+        // The caller's user travels with the task, e.g. for read-your-writes routing
+        executor.execute(new DelegatingSecurityContextRunnable(() -> {
+            if (result.isDone() || !claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }));
+        if (timeoutCoversExecution) {
+            return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                result.completeExceptionally(new TimeoutException());
+            }
+        });
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
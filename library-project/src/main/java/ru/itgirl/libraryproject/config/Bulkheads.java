@@ -0,0 +1,51 @@
+package ru.itgirl.libraryproject.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@Getter
+public class Bulkheads implements DisposableBean {
+
+    private final Bulkhead lookups;
+
+    private final Bulkhead listings;
+
+    private final Bulkhead writes;
+
+    private final Bulkhead imports;
+
+    public Bulkheads(@Value("${library.bulkhead.lookups.threads:6}") int lookupThreads,
+                     @Value("${library.bulkhead.lookups.queue-capacity:100}") int lookupQueueCapacity,
+                     @Value("${library.bulkhead.lookups.timeout:2s}") Duration lookupTimeout,
+                     @Value("${library.bulkhead.listings.threads:2}") int listingThreads,
+                     @Value("${library.bulkhead.listings.queue-capacity:10}") int listingQueueCapacity,
+                     @Value("${library.bulkhead.listings.timeout:10s}") Duration listingTimeout,
+                     @Value("${library.bulkhead.writes.threads:2}") int writeThreads,
+                     @Value("${library.bulkhead.writes.queue-capacity:20}") int writeQueueCapacity,
+                     @Value("${library.bulkhead.writes.timeout:10s}") Duration writeTimeout,
+                     @Value("${library.bulkhead.imports.threads:1}") int importThreads,
+                     @Value("${library.bulkhead.imports.queue-capacity:4}") int importQueueCapacity,
+                     @Value("${library.bulkhead.imports.timeout:30m}") Duration importTimeout) {
+        this.lookups = new Bulkhead("lookups", lookupThreads, lookupQueueCapacity, lookupTimeout);
+        this.listings = new Bulkhead("listings", listingThreads, listingQueueCapacity, listingTimeout);
+        // A started write may commit however long it takes, so its timeout only bounds the wait in the queue
+        this.writes = new Bulkhead("writes", writeThreads, writeQueueCapacity, writeTimeout, false);
+        // Imports outlive their request and report through the job, so the timeout likewise bounds only the queue
+        this.imports = new Bulkhead("imports", importThreads, importQueueCapacity, importTimeout, false);
+    }
+
+    public List<Bulkhead> all() {
+        return List.of(lookups, listings, writes, imports);
+    }
+
+    @Override
+    public void destroy() {
+        all().forEach(Bulkhead::shutdown);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.itgirl.libraryproject.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    // Same setup as Boot's Caffeine cache manager, but the caches are CatalogCaffeineCaches: @Cacheable(sync = true)
+    // loads run outside Caffeine's map lock, and writes evict only the keys that show the changed book or author
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine")
+    public CaffeineCacheManager cacheManager(CacheProperties cacheProperties) {
+        String specification = cacheProperties.getCaffeine().getSpec();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache createCaffeineCache(String name) {
+                Caffeine<Object, Object> builder = StringUtils.hasText(specification)
+                        ? Caffeine.from(specification)
+                        : Caffeine.newBuilder();
+                return CatalogCaffeineCache.create(name, builder, isAllowNullValues());
+            }
+        };
+        cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,185 @@
+package ru.itgirl.libraryproject.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// A DTO cache that knows which keys hold a given book or author, so a write evicts exactly those keys. Values are
+// copied in and out: callers get their own DTO and cannot change the cached one.
+public class CatalogCaffeineCache extends SingleFlightCaffeineCache {
+
+    private final KeyIndex index;
+
+    private CatalogCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                 boolean allowNullValues, KeyIndex index) {
+        super(name, cache, allowNullValues);
+        this.index = index;
+    }
+
+    public static CatalogCaffeineCache create(String name, Caffeine<Object, Object> builder, boolean allowNullValues) {
+        KeyIndex index = new KeyIndex();
+        // Expired and size-evicted entries leave the index here; explicit removals go through evict and clear
+        builder.evictionListener((key, value, cause) -> index.remove(key, References.of(value)));
+        return new CatalogCaffeineCache(name, builder.build(), allowNullValues, index);
+    }
+
+    public void evictByBookId(Long bookId) {
+        index.keysByBookId.getOrDefault(bookId, Set.of()).forEach(this::evict);
+    }
+
+    public void evictByAuthorId(Long authorId) {
+        index.keysByAuthorId.getOrDefault(authorId, Set.of()).forEach(this::evict);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        References references = References.of(value);
+        index.add(key, references);
+        Object previous = getNativeCache().asMap().put(key, toStoreValue(value));
+        if (previous != null) {
+            index.remove(key, References.of(previous).without(references));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        index.add(key, References.of(value));
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        Object removed = getNativeCache().asMap().remove(key);
+        if (removed == null) {
+            return false;
+        }
+        index.remove(key, References.of(removed));
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        index.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = super.invalidate();
+        index.clear();
+        return notEmpty;
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return super.toStoreValue(copy(userValue));
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return copy(super.fromStoreValue(storeValue));
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof BookDto bookDto) {
+            return copy(bookDto);
+        } else if (value instanceof AuthorDto authorDto) {
+            return copy(authorDto);
+        }
+        return value;
+    }
+
+    private static BookDto copy(BookDto bookDto) {
+        List<AuthorDto> authors = bookDto.getAuthors();
+        return bookDto.toBuilder()
+                .authors(authors == null ? null : authors.stream().map(CatalogCaffeineCache::copy).toList())
+                .build();
+    }
+
+    private static AuthorDto copy(AuthorDto authorDto) {
+        List<BookDto> books = authorDto.getBooks();
+        return authorDto.toBuilder()
+                .books(books == null ? null : books.stream().map(CatalogCaffeineCache::copy).toList())
+                .build();
+    }
+
+    // The books and authors a cached DTO shows, itself included
+    private record References(Set<Long> bookIds, Set<Long> authorIds) {
+
+        static References of(Object value) {
+            Set<Long> bookIds = new HashSet<>();
+            Set<Long> authorIds = new HashSet<>();
+            if (value instanceof BookDto bookDto) {
+                bookIds.add(bookDto.getId());
+                if (bookDto.getAuthors() != null) {
+                    bookDto.getAuthors().forEach(author -> authorIds.add(author.getId()));
+                }
+            } else if (value instanceof AuthorDto authorDto) {
+                authorIds.add(authorDto.getId());
+                if (authorDto.getBooks() != null) {
+                    authorDto.getBooks().forEach(book -> bookIds.add(book.getId()));
+                }
+            }
+            bookIds.remove(null);
+            authorIds.remove(null);
+            return new References(bookIds, authorIds);
+        }
+
+        References without(References other) {
+            Set<Long> books = new HashSet<>(bookIds);
+            books.removeAll(other.bookIds);
+            Set<Long> authors = new HashSet<>(authorIds);
+            authors.removeAll(other.authorIds);
+            return new References(books, authors);
+        }
+    }
+
+    private static class KeyIndex {
+
+        private final ConcurrentMap<Long, Set<Object>> keysByBookId = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<Long, Set<Object>> keysByAuthorId = new ConcurrentHashMap<>();
+
+        void add(Object key, References references) {
+            references.bookIds().forEach(id -> add(keysByBookId, id, key));
+            references.authorIds().forEach(id -> add(keysByAuthorId, id, key));
+        }
+
+        void remove(Object key, References references) {
+            references.bookIds().forEach(id -> remove(keysByBookId, id, key));
+            references.authorIds().forEach(id -> remove(keysByAuthorId, id, key));
+        }
+
+        void clear() {
+            keysByBookId.clear();
+            keysByAuthorId.clear();
+        }
+
+        // Both run under the id's map entry lock, so a key is never added to a set that is being dropped
+        private static void add(ConcurrentMap<Long, Set<Object>> keysById, Long id, Object key) {
+            keysById.compute(id, (ignored, keys) -> {
+                Set<Object> updated = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                updated.add(key);
+                return updated;
+            });
+        }
+
+        private static void remove(ConcurrentMap<Long, Set<Object>> keysById, Long id, Object key) {
+            keysById.computeIfPresent(id, (ignored, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package ru.itgirl.libraryproject.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+
+// Tomcat never compresses a response with a strong ETag, since the tag would then name two different bodies.
+// Handlers that tag each content coding separately set Content-Encoding: gzip next to their strong ETag and leave
+// the compression to this filter; the request attribute tells them it is available. Responses without a strong
+// tag, such as the exports that compress their own stream, are passed through. Like Tomcat, the filter leaves bodies
+// below server.compression.min-response-size uncompressed: the coding is decided once that much is buffered, and
+// a smaller body goes out as is under the same tag, which still names one set of bytes per version.
+@Component
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class GzipContentEncodingFilter extends OncePerRequestFilter {
+
+    public static final String AVAILABLE = GzipContentEncodingFilter.class.getName() + ".AVAILABLE";
+
+    private final int minResponseSize;
+
+    public GzipContentEncodingFilter(@Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        this.minResponseSize = (int) minResponseSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        request.setAttribute(AVAILABLE, Boolean.TRUE);
+        // An async dispatch comes back with the wrapper of the initial dispatch
+        GzipResponse gzipResponse = WebUtils.getNativeResponse(response, GzipResponse.class);
+        if (gzipResponse == null) {
+            gzipResponse = new GzipResponse(response, minResponseSize);
+            filterChain.doFilter(request, gzipResponse);
+        } else {
+            filterChain.doFilter(request, response);
+        }
+        if (!request.isAsyncStarted()) {
+            gzipResponse.finish();
+        }
+    }
+
+    private static class GzipResponse extends HttpServletResponseWrapper {
+
+        private final int minResponseSize;
+
+        // Content-Encoding: gzip next to a strong tag, held back until the body size decides it
+        private boolean gzipRequested;
+
+        private GzipOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response, int minResponseSize) {
+            super(response);
+            this.minResponseSize = minResponseSize;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null && gzipRequested) {
+                outputStream = new GzipOutputStream();
+            }
+            return outputStream != null ? outputStream : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null && gzipRequested) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer != null ? writer : super.getWriter();
+        }
+
+        // The length is only known once the coding is decided
+        @Override
+        public void setContentLength(int length) {
+            if (!gzipRequested) {
+                super.setContentLength(length);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (!gzipRequested) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (holdsBack(name, value)) {
+                gzipRequested = true;
+            } else if (!gzipRequested || !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (holdsBack(name, value)) {
+                gzipRequested = true;
+            } else if (!gzipRequested || !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return gzipRequested && HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) ? "gzip" : super.getHeader(name);
+        }
+
+        // While the body is still buffered nothing is committed, so the coding can still be chosen
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.flush();
+                if (outputStream.gzip == null) {
+                    return;
+                }
+            }
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.finish();
+            }
+        }
+
+        private boolean holdsBack(String name, String value) {
+            String etag = getHeader(HttpHeaders.ETAG);
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) && "gzip".equals(value)
+                    && etag != null && !etag.startsWith("W/");
+        }
+
+        private class GzipOutputStream extends ServletOutputStream {
+
+            private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+            private GZIPOutputStream gzip;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (gzip != null) {
+                    gzip.write(b, off, len);
+                    return;
+                }
+                buffer.write(b, off, len);
+                if (buffer.size() >= minResponseSize) {
+                    GzipResponse.super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    gzip = new GZIPOutputStream(GzipResponse.super.getOutputStream(), true);
+                    buffer.writeTo(gzip);
+                    buffer.reset();
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (gzip != null) {
+                    gzip.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return GzipResponse.super.getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    GzipResponse.super.getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            void finish() throws IOException {
+                if (gzip != null) {
+                    gzip.finish();
+                } else if (buffer.size() > 0) {
+                    GzipResponse.super.setContentLength(buffer.size());
+                    buffer.writeTo(GzipResponse.super.getOutputStream());
+                    buffer.reset();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.itgirl.libraryproject.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itgirl.libraryproject.service.VersionConflictException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Runs outside the transaction interceptor, so every attempt gets a new transaction and a fresh read. A call made
+// inside a caller's transaction is not retried: that transaction is already marked rollback-only.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class OptimisticLockRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    private final long backoffNanos;
+
+    public OptimisticLockRetryAspect(MeterRegistry meterRegistry,
+                                     @Value("${library.update.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${library.update.retry.backoff:10ms}") Duration backoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoffNanos = backoff.toNanos();
+    }
+
+    @Around("@annotation(ru.itgirl.libraryproject.service.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (VersionConflictException e) {
+                conflicts(method, "stale").increment();
+                throw e;
+            } catch (OptimisticLockingFailureException | StaleStateException e) {
+                if (!retryable) {
+                    log.debug("{} lost an optimistic lock race on {} inside the caller's transaction, not retried",
+                            method, staleRow(e));
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    log.warn("{} lost {} optimistic lock races in a row, last on {}", method, attempt, staleRow(e));
+                    conflicts(method, "exhausted").increment();
+                    throw e;
+                }
+                meterRegistry.counter("library.update.retries", "method", method).increment();
+                log.debug("{} lost an optimistic lock race on {}, attempt {} of {}", method, staleRow(e), attempt,
+                        maxAttempts);
+                sleep(attempt);
+            }
+        }
+    }
+
+    // Versioned updates are not JDBC-batched, so Hibernate names the entity and id that changed underneath
+    private static String staleRow(RuntimeException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException failure && failure.getPersistentClassName() != null) {
+            return failure.getPersistentClassName() + "#" + failure.getIdentifier();
+        }
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof StaleStateException)) {
+            cause = cause.getCause();
+        }
+        return cause != null ? cause.getMessage() : e.getMessage();
+    }
+
+    // Full jitter over an exponentially growing window keeps racing writers from colliding again in lockstep
+    private void sleep(int attempt) throws InterruptedException {
+        long window = backoffNanos << Math.min(attempt - 1, 16);
+        if (window > 0) {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(window + 1));
+        }
+    }
+
+    private Counter conflicts(String method, String cause) {
+        return meterRegistry.counter("library.update.conflicts", "method", method, "cause", cause);
+    }
+}
@@ -0,0 +1,192 @@
+package ru.itgirl.libraryproject.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Read-only transactions take their connection round-robin from the healthy replicas; everything else, and the
+// reads of a user shortly after their own write, goes to the primary. Needs a LazyConnectionDataSourceProxy in front
+// so the connection is fetched after the transaction has been marked read-only.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Supplier<String> currentUser;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter fallbacks;
+
+    private final ScheduledExecutorService healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Supplier<String> currentUser,
+                                    Duration readYourWritesWindow, Duration healthCheckInterval,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.currentUser = currentUser;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(100_000)
+                .build();
+        this.fallbacks = meterRegistry.counter("library.datasource.replica.fallbacks");
+        this.replicas.forEach(replica -> Gauge.builder("library.datasource.replica.up", replica, r -> r.up ? 1 : 0)
+                .tag("replica", replica.pool.getPoolName())
+                .register(meterRegistry));
+        long interval = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriter();
+            return primary.getConnection();
+        }
+        if (isRecentWriter()) {
+            return primary.getConnection();
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.up) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                // A busy replica keeps its place in rotation; only this read goes elsewhere
+                if (!isPoolExhausted(e)) {
+                    replica.markDown(e.getMessage());
+                }
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing uses the credentials of its pools");
+    }
+
+    // Brings replicas back once they answer again, and takes down the ones that stopped answering while idle
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (connection.isValid(1)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown("connection is not valid");
+                }
+            } catch (SQLException e) {
+                if (!isPoolExhausted(e)) {
+                    replica.markDown(e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Hikari times out the same way when every connection is in use and when it cannot open one, but only the latter
+    // carries the connection failure as its cause
+    static boolean isPoolExhausted(SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    long replicasUp() {
+        return replicas.stream().filter(replica -> replica.up).count();
+    }
+
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    // The user is routed to the primary only once their transaction has committed; a rolled back one changed nothing.
+    // The lazy proxy in front asks for a connection on the first statement, so a transaction that runs none is skipped.
+    private void rememberWriter() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        String user = currentUser.get();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+            }
+        });
+    }
+
+    private boolean isRecentWriter() {
+        String user = currentUser.get();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource pool;
+
+        private volatile boolean up = true;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        void markUp() {
+            if (!up) {
+                up = true;
+                log.info("Replica {} is back, routing reads to it again", pool.getPoolName());
+            }
+        }
+
+        void markDown(String reason) {
+            if (up) {
+                up = false;
+                log.warn("Replica {} is down, reads fall back to the other replicas or the primary: {}",
+                        pool.getPoolName(), reason);
+            }
+            // Connections that outlived the outage would fail their first statement
+            pool.getHikariPoolMXBean().softEvictConnections();
+        }
+    }
+}
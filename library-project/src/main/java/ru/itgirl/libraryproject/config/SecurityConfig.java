@@ -3,17 +3,29 @@ package ru.itgirl.libraryproject.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import ru.itgirl.libraryproject.model.Users;
 import ru.itgirl.libraryproject.repository.UsersRepository;
+import ru.itgirl.libraryproject.security.BCryptStrengthCalibrator;
+import ru.itgirl.libraryproject.security.CachingAuthenticationProvider;
+import ru.itgirl.libraryproject.security.CredentialCache;
+import ru.itgirl.libraryproject.security.UsersPasswordUpgradeService;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -22,14 +34,32 @@ public class SecurityConfig {
     @Autowired
     private UsersRepository usersRepository;
 
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private BCryptStrengthCalibrator bCryptStrengthCalibrator;
+
+    @Autowired
+    private UsersPasswordUpgradeService usersPasswordUpgradeService;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.csrf().disable().authorizeHttpRequests((authorize) ->
                         authorize.requestMatchers("/book").hasRole("reader")
                                 .requestMatchers("/book/v2").hasRole("reader")
+                                .requestMatchers("/async/book").hasRole("reader")
                                 .requestMatchers("/books").hasRole("reader")
+                                .requestMatchers("/books/stream").hasRole("reader")
                                 .requestMatchers("/authors").hasRole("admin")
+                                .requestMatchers("/authors/stream").hasRole("admin")
+                                .requestMatchers("/import/**").hasRole("admin")
+                                .requestMatchers("/export/**").hasRole("admin")
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/**").hasRole("admin")
                                 .anyRequest().authenticated())
+                .authenticationManager(new ProviderManager(
+                        new CachingAuthenticationProvider(daoAuthenticationProvider(), credentialCache)))
                 .httpBasic();
         return http.build();
     }
@@ -44,7 +74,7 @@ public class SecurityConfig {
 
             UserDetails userDetails = User.builder()
                     .username(user.getLogin())
-                    .password(passwordEncoder().encode(user.getPassword()))
+                    .password(user.getPassword())
                     .roles(user.getRoles())
                     .build();
 
@@ -52,8 +82,20 @@ public class SecurityConfig {
         };
     }
 
+    private DaoAuthenticationProvider daoAuthenticationProvider() {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService());
+        provider.setPasswordEncoder(passwordEncoder());
+        provider.setUserDetailsPasswordService(usersPasswordUpgradeService);
+        return provider;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bCryptStrengthCalibrator.getStrength()));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        return new DelegatingPasswordEncoder("bcrypt", encoders);
     }
 }
@@ -1,19 +1,45 @@
 package ru.itgirl.libraryproject.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.PageCursor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
 public class AuthorController {
     private final AuthorService authorService;
 
+    private final StreamingViewRenderer streamingViewRenderer;
+
     @GetMapping("/authors")
-    String getAuthorsView(Model model) {
-        model.addAttribute("authors", authorService.getAllAuthors());
+    String getAuthorsView(@RequestParam(value = "cursor", required = false) String cursor,
+                          @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size,
+                          Model model) {
+        PageDto<AuthorDto> page = authorService.getAuthorsPage(cursor, size);
+        model.addAttribute("authors", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("size", PageCursor.boundSize(size));
         return "authors";
     }
+
+    @GetMapping("/authors/stream")
+    void streamAuthorsView(HttpServletResponse response) throws IOException {
+        response.setContentType(StreamingViewRenderer.CONTENT_TYPE);
+        Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        authorService.streamAllAuthors(authors ->
+                streamingViewRenderer.render("authors", Map.of("authors", authors.iterator()), writer));
+    }
 }
@@ -1,22 +1,45 @@
 package ru.itgirl.libraryproject.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
-import ru.itgirl.libraryproject.dto.BookDto;
+import org.springframework.web.bind.annotation.RequestParam;
+import ru.itgirl.libraryproject.dto.BookListItemDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.PageCursor;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @Controller
 @RequiredArgsConstructor
 public class BookController {
     private final BookService bookService;
 
+    private final StreamingViewRenderer streamingViewRenderer;
+
     @GetMapping("/books")
-    String getBooksView(Model model) {
-        model.addAttribute("books", bookService.getAllBooks());
+    String getBooksView(@RequestParam(value = "cursor", required = false) String cursor,
+                        @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size,
+                        Model model) {
+        PageDto<BookListItemDto> page = bookService.getBookListPage(cursor, size);
+        model.addAttribute("books", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("size", PageCursor.boundSize(size));
         return "books";
     }
+
+    @GetMapping("/books/stream")
+    void streamBooksView(HttpServletResponse response) throws IOException {
+        response.setContentType(StreamingViewRenderer.CONTENT_TYPE);
+        Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        bookService.streamBookList(books ->
+                streamingViewRenderer.render("books", Map.of("books", books.iterator()), writer));
+    }
 }
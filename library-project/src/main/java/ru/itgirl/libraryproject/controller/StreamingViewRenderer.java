@@ -0,0 +1,30 @@
+package ru.itgirl.libraryproject.controller;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfig;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class StreamingViewRenderer {
+
+    public static final String CONTENT_TYPE = "text/html;charset=UTF-8";
+
+    private final FreeMarkerConfig freeMarkerConfig;
+
+    public void render(String viewName, Map<String, Object> model, Writer writer) {
+        try {
+            Template template = freeMarkerConfig.getConfiguration().getTemplate(viewName + ".ftlh");
+            template.process(model, writer);
+            writer.flush();
+        } catch (IOException | TemplateException e) {
+            throw new IllegalStateException("Failed to render view " + viewName, e);
+        }
+    }
+}
@@ -3,11 +3,22 @@ package ru.itgirl.libraryproject.controller.rest;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.itgirl.libraryproject.config.Bulkheads;
 import ru.itgirl.libraryproject.dto.AuthorCreateDto;
 import ru.itgirl.libraryproject.dto.AuthorDto;
 import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BatchDeleteResultDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.PageCursor;
+import ru.itgirl.libraryproject.service.SearchMode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,8 +27,13 @@ public class AuthorRestController {
 
     private final AuthorService authorService;
 
+    private final Bulkheads bulkheads;
+
     @GetMapping("/author/{id}")
-    AuthorDto getAuthorById(@PathVariable("id") Long id) {
+    AuthorDto getAuthorById(@PathVariable("id") Long id, WebRequest request) {
+        if (VersionTags.notModified(request, authorService.getAuthorVersionTag(id))) {
+            return null;
+        }
         return authorService.getAuthorById(id);
     }
 
@@ -36,11 +52,30 @@ public class AuthorRestController {
         return authorService.getBySurnameV3(surname);
     }
 
+    @GetMapping("/author/list")
+    PageDto<AuthorDto> getAuthorsPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return authorService.getAuthorsPage(cursor, size);
+    }
+
+    @GetMapping("/author/search")
+    List<AuthorDto> searchAuthors(@RequestParam("q") String query,
+                                  @RequestParam(value = "mode", defaultValue = "PREFIX") SearchMode mode,
+                                  @RequestParam(value = "page", defaultValue = "0") int page,
+                                  @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return authorService.searchAuthors(query, mode, page, size);
+    }
+
     @PostMapping("/author/create")
     AuthorDto createAuthor(@RequestBody @Valid AuthorCreateDto authorCreateDto) {
         return authorService.createAuthor(authorCreateDto);
     }
 
+    @PostMapping("/author/batch")
+    BatchResultDto createAuthors(@RequestBody List<AuthorCreateDto> authorCreateDtos) {
+        return authorService.createAuthors(authorCreateDtos);
+    }
+
     @PutMapping("/author/update")
     AuthorDto updateAuthor(@RequestBody @Valid AuthorUpdateDto authorUpdateDto) {
         return authorService.updateAuthor(authorUpdateDto);
@@ -51,4 +86,66 @@ public class AuthorRestController {
         authorService.deleteAuthor(id);
 
     }
+
+    @DeleteMapping("/author/batch")
+    BatchDeleteResultDto deleteAuthors(@RequestParam("ids") List<Long> ids) {
+        return authorService.deleteAuthors(ids);
+    }
+
+    @GetMapping("/async/author/{id}")
+    CompletableFuture<ResponseEntity<AuthorDto>> getAuthorByIdAsync(
+            @PathVariable("id") Long id, WebRequest request) {
+        VersionTags.Conditional conditional = VersionTags.conditional(request);
+        return bulkheads.getLookups().submit(() -> conditional.respond(authorService.getAuthorVersionTag(id),
+                () -> authorService.getAuthorById(id)));
+    }
+
+    @GetMapping("/async/author")
+    CompletableFuture<AuthorDto> getAuthorByNameAsync(@RequestParam("surname") String surname) {
+        return bulkheads.getLookups().submit(() -> authorService.getBySurnameV1(surname));
+    }
+
+    @GetMapping("/async/author/list")
+    CompletableFuture<PageDto<AuthorDto>> getAuthorsPageAsync(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bulkheads.getListings().submit(() -> authorService.getAuthorsPage(cursor, size));
+    }
+
+    @GetMapping("/async/author/search")
+    CompletableFuture<List<AuthorDto>> searchAuthorsAsync(
+            @RequestParam("q") String query,
+            @RequestParam(value = "mode", defaultValue = "PREFIX") SearchMode mode,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bulkheads.getListings().submit(() -> authorService.searchAuthors(query, mode, page, size));
+    }
+
+    @PostMapping("/async/author/create")
+    CompletableFuture<AuthorDto> createAuthorAsync(@RequestBody @Valid AuthorCreateDto authorCreateDto) {
+        return bulkheads.getWrites().submit(() -> authorService.createAuthor(authorCreateDto));
+    }
+
+    @PostMapping("/async/author/batch")
+    CompletableFuture<BatchResultDto> createAuthorsAsync(@RequestBody List<AuthorCreateDto> authorCreateDtos) {
+        return bulkheads.getWrites().submit(() -> authorService.createAuthors(authorCreateDtos));
+    }
+
+    @PutMapping("/async/author/update")
+    CompletableFuture<AuthorDto> updateAuthorAsync(@RequestBody @Valid AuthorUpdateDto authorUpdateDto) {
+        return bulkheads.getWrites().submit(() -> authorService.updateAuthor(authorUpdateDto));
+    }
+
+    @DeleteMapping("/async/author/batch")
+    CompletableFuture<BatchDeleteResultDto> deleteAuthorsAsync(@RequestParam("ids") List<Long> ids) {
+        return bulkheads.getWrites().submit(() -> authorService.deleteAuthors(ids));
+    }
+
+    @DeleteMapping("/async/author/delete/{id}")
+    CompletableFuture<Void> deleteAuthorAsync(@PathVariable("id") Long id) {
+        return bulkheads.getWrites().submit(() -> {
+            authorService.deleteAuthor(id);
+            return null;
+        });
+    }
 }
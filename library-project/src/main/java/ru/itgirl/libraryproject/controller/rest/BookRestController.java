@@ -3,11 +3,22 @@ package ru.itgirl.libraryproject.controller.rest;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.itgirl.libraryproject.config.Bulkheads;
+import ru.itgirl.libraryproject.dto.BatchDeleteResultDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
 import ru.itgirl.libraryproject.dto.BookCreateDto;
 import ru.itgirl.libraryproject.dto.BookDto;
 import ru.itgirl.libraryproject.dto.BookUpdateDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.PageCursor;
+import ru.itgirl.libraryproject.service.SearchMode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,26 +27,56 @@ import ru.itgirl.libraryproject.service.BookService;
 public class BookRestController {
     private final BookService bookService;
 
+    private final Bulkheads bulkheads;
+
     @GetMapping("/book")
-    BookDto getBookByNameV1(@RequestParam("name") String name) {
+    BookDto getBookByNameV1(@RequestParam("name") String name, WebRequest request) {
+        if (VersionTags.notModified(request, bookService.getBookVersionTag(name))) {
+            return null;
+        }
         return bookService.getBookByNameV1(name);
     }
 
     @GetMapping("/book/v2")
-    BookDto getBookByNameV2(@RequestParam("name") String name) {
+    BookDto getBookByNameV2(@RequestParam("name") String name, WebRequest request) {
+        if (VersionTags.notModified(request, bookService.getBookVersionTag(name))) {
+            return null;
+        }
         return bookService.getBookByNameV2(name);
     }
 
     @GetMapping("/book/v3")
-    BookDto getBookByNameV3(@RequestParam("name") String name) {
+    BookDto getBookByNameV3(@RequestParam("name") String name, WebRequest request) {
+        if (VersionTags.notModified(request, bookService.getBookVersionTag(name))) {
+            return null;
+        }
         return bookService.getBookByNameV3(name);
     }
 
+    @GetMapping("/book/list")
+    PageDto<BookDto> getBooksPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                  @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bookService.getBooksPage(cursor, size);
+    }
+
+    @GetMapping("/book/search")
+    List<BookDto> searchBooks(@RequestParam("q") String query,
+                              @RequestParam(value = "mode", defaultValue = "PREFIX") SearchMode mode,
+                              @RequestParam(value = "page", defaultValue = "0") int page,
+                              @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bookService.searchBooks(query, mode, page, size);
+    }
+
     @PostMapping("book/create")
     BookDto createBook(@RequestBody @Valid BookCreateDto bookCreateDto) {
         return bookService.createBook(bookCreateDto);
     }
 
+    @PostMapping("/book/batch")
+    BatchResultDto createBooks(@RequestBody List<BookCreateDto> bookCreateDtos) {
+        return bookService.createBooks(bookCreateDtos);
+    }
+
     @PutMapping("/book/update")
     BookDto updateBook(@RequestBody @Valid BookUpdateDto bookUpdateDto) {
         return bookService.updateBook(bookUpdateDto);
@@ -45,4 +86,66 @@ public class BookRestController {
     void deleteBook(@PathVariable("id") Long id) {
        bookService.deleteBook(id);
     }
+
+    // Deletes the listed books, or every book of a genre or of an author
+    @DeleteMapping("/book/batch")
+    BatchDeleteResultDto deleteBooks(@RequestParam(value = "ids", required = false) List<Long> ids,
+                                     @RequestParam(value = "genre", required = false) Long genreId,
+                                     @RequestParam(value = "author", required = false) Long authorId) {
+        return bookService.deleteBooks(ids, genreId, authorId);
+    }
+
+    @GetMapping("/async/book")
+    CompletableFuture<ResponseEntity<BookDto>> getBookByNameAsync(
+            @RequestParam("name") String name, WebRequest request) {
+        VersionTags.Conditional conditional = VersionTags.conditional(request);
+        return bulkheads.getLookups().submit(() -> conditional.respond(bookService.getBookVersionTag(name),
+                () -> bookService.getBookByNameV1(name)));
+    }
+
+    @GetMapping("/async/book/list")
+    CompletableFuture<PageDto<BookDto>> getBooksPageAsync(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bulkheads.getListings().submit(() -> bookService.getBooksPage(cursor, size));
+    }
+
+    @GetMapping("/async/book/search")
+    CompletableFuture<List<BookDto>> searchBooksAsync(
+            @RequestParam("q") String query,
+            @RequestParam(value = "mode", defaultValue = "PREFIX") SearchMode mode,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int size) {
+        return bulkheads.getListings().submit(() -> bookService.searchBooks(query, mode, page, size));
+    }
+
+    @PostMapping("/async/book/create")
+    CompletableFuture<BookDto> createBookAsync(@RequestBody @Valid BookCreateDto bookCreateDto) {
+        return bulkheads.getWrites().submit(() -> bookService.createBook(bookCreateDto));
+    }
+
+    @PostMapping("/async/book/batch")
+    CompletableFuture<BatchResultDto> createBooksAsync(@RequestBody List<BookCreateDto> bookCreateDtos) {
+        return bulkheads.getWrites().submit(() -> bookService.createBooks(bookCreateDtos));
+    }
+
+    @PutMapping("/async/book/update")
+    CompletableFuture<BookDto> updateBookAsync(@RequestBody @Valid BookUpdateDto bookUpdateDto) {
+        return bulkheads.getWrites().submit(() -> bookService.updateBook(bookUpdateDto));
+    }
+
+    @DeleteMapping("/async/book/batch")
+    CompletableFuture<BatchDeleteResultDto> deleteBooksAsync(@RequestParam(value = "ids", required = false) List<Long> ids,
+                                                             @RequestParam(value = "genre", required = false) Long genreId,
+                                                             @RequestParam(value = "author", required = false) Long authorId) {
+        return bulkheads.getWrites().submit(() -> bookService.deleteBooks(ids, genreId, authorId));
+    }
+
+    @DeleteMapping("/async/book/delete/{id}")
+    CompletableFuture<Void> deleteBookAsync(@PathVariable("id") Long id) {
+        return bulkheads.getWrites().submit(() -> {
+            bookService.deleteBook(id);
+            return null;
+        });
+    }
 }
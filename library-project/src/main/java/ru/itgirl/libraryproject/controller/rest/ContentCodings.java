@@ -0,0 +1,31 @@
+package ru.itgirl.libraryproject.controller.rest;
+
+final class ContentCodings {
+
+    private ContentCodings() {
+    }
+
+    // Accept-Encoding is a list of codings with optional q-values, possibly over several header lines. gzip is
+    // acceptable when it is listed without q=0, or when it is not listed and * is; x-gzip-foo is another coding.
+    static boolean acceptsGzip(String... acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String header : acceptEncoding) {
+            if (header == null) {
+                continue;
+            }
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                boolean acceptable = parts.length < 2 || !parts[1].trim().matches("(?i)q=0(\\.0*)?");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return acceptable;
+                } else if (parts[0].trim().equals("*")) {
+                    wildcard = acceptable;
+                }
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+}
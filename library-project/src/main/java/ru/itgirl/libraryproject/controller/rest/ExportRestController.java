@@ -0,0 +1,63 @@
+package ru.itgirl.libraryproject.controller.rest;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.itgirl.libraryproject.service.CatalogExportService;
+import ru.itgirl.libraryproject.service.CatalogFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequiredArgsConstructor
+@SecurityRequirement(name = "library-users")
+
+public class ExportRestController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final CatalogExportService catalogExportService;
+
+    @GetMapping("/export/books")
+    void exportBooks(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                     HttpServletResponse response) throws IOException {
+        CatalogFormat catalogFormat = parseFormat(format);
+        try (OutputStream output = openOutput(response, catalogFormat, acceptEncoding)) {
+            catalogExportService.exportBooks(catalogFormat, output);
+        }
+    }
+
+    @GetMapping("/export/authors")
+    void exportAuthors(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        CatalogFormat catalogFormat = parseFormat(format);
+        try (OutputStream output = openOutput(response, catalogFormat, acceptEncoding)) {
+            catalogExportService.exportAuthors(catalogFormat, output);
+        }
+    }
+
+    private static CatalogFormat parseFormat(String format) {
+        return CatalogFormat.valueOf(format.toUpperCase(Locale.ROOT));
+    }
+
+    private static OutputStream openOutput(HttpServletResponse response, CatalogFormat format, String acceptEncoding)
+            throws IOException {
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (ContentCodings.acceptsGzip(acceptEncoding)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
+        }
+        return response.getOutputStream();
+    }
+}
@@ -2,12 +2,17 @@ package ru.itgirl.libraryproject.controller.rest;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.itgirl.libraryproject.config.Bulkheads;
 import ru.itgirl.libraryproject.dto.GenreDto;
 import ru.itgirl.libraryproject.service.GenreService;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequiredArgsConstructor
 @SecurityRequirement(name = "library-users")
@@ -16,8 +21,22 @@ public class GenreRestController {
 
     private final GenreService genreService;
 
+    private final Bulkheads bulkheads;
+
     @GetMapping("genre/{id}")
-    public GenreDto getGenreById(@PathVariable Long id) {
+    public GenreDto getGenreById(@PathVariable Long id, WebRequest request) {
+        if (VersionTags.notModified(request, genreService.getGenreVersionTag(id))) {
+            return null;
+        }
         return genreService.getGenreById(id);
     }
+
+    // A genre carries all of its books, so it runs with the listings rather than the point lookups
+    @GetMapping("/async/genre/{id}")
+    public CompletableFuture<ResponseEntity<GenreDto>> getGenreByIdAsync(
+            @PathVariable Long id, WebRequest request) {
+        VersionTags.Conditional conditional = VersionTags.conditional(request);
+        return bulkheads.getListings().submit(() -> conditional.respond(genreService.getGenreVersionTag(id),
+                () -> genreService.getGenreById(id)));
+    }
 }
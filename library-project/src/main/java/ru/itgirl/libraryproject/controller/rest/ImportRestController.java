@@ -0,0 +1,49 @@
+package ru.itgirl.libraryproject.controller.rest;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.itgirl.libraryproject.dto.ImportJobDto;
+import ru.itgirl.libraryproject.service.CatalogImportService;
+import ru.itgirl.libraryproject.service.CatalogFormat;
+
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequiredArgsConstructor
+@SecurityRequirement(name = "library-users")
+
+public class ImportRestController {
+
+    private final CatalogImportService catalogImportService;
+
+    @PostMapping(value = "/import/catalog", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    ResponseEntity<ImportJobDto> importCatalog(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                               InputStream body) {
+        return accepted(catalogImportService.importCatalog(body, CatalogFormat.of(contentType)));
+    }
+
+    @PostMapping("/import/catalog/file")
+    ResponseEntity<ImportJobDto> importFile(@RequestParam("name") String name) {
+        return accepted(catalogImportService.importFile(name));
+    }
+
+    @PostMapping("/import/jobs/{id}/resume")
+    ResponseEntity<ImportJobDto> resumeImport(@PathVariable("id") Long id, InputStream body) {
+        return accepted(catalogImportService.resumeImport(id, body));
+    }
+
+    @GetMapping("/import/jobs/{id}")
+    ImportJobDto getImportJob(@PathVariable("id") Long id) {
+        return catalogImportService.getImportJob(id);
+    }
+
+    // The job is only queued here; its progress is polled at the Location
+    private static ResponseEntity<ImportJobDto> accepted(ImportJobDto job) {
+        return ResponseEntity.accepted().location(URI.create("/import/jobs/" + job.getId())).body(job);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.itgirl.libraryproject.controller.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import ru.itgirl.libraryproject.service.ImportJobStateException;
+import ru.itgirl.libraryproject.service.NotFoundException;
+import ru.itgirl.libraryproject.service.VersionConflictException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+@RestControllerAdvice
+@Slf4j
+public class RestExceptionHandler {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Misses are expected traffic: no stack trace, no log line
+    @ExceptionHandler(NotFoundException.class)
+    ResponseEntity<ProblemDetail> handleNotFound(NotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<ProblemDetail> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    // The body carries the entity as it is now, so the client can merge and resend with its version
+    @ExceptionHandler(VersionConflictException.class)
+    ResponseEntity<ProblemDetail> handleVersionConflict(VersionConflictException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+        problem.setProperty("current", e.getCurrent());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problem);
+    }
+
+    @ExceptionHandler(ImportJobStateException.class)
+    ResponseEntity<ProblemDetail> handleImportJobState(ImportJobStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    ResponseEntity<ProblemDetail> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Too many concurrent updates"));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    ResponseEntity<ProblemDetail> handleRejected(RejectedExecutionException e) {
+        log.warn(e.getMessage());
+        return serviceUnavailable(e.getMessage());
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    ResponseEntity<ProblemDetail> handleTimeout(TimeoutException e) {
+        log.warn("Request timed out in its bulkhead");
+        return serviceUnavailable("Request timed out");
+    }
+
+    // The request outlived the servlet async timeout while its task was running: a write may still commit, so no
+    // retry is suggested
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    ResponseEntity<ProblemDetail> handleAsyncRequestTimeout(AsyncRequestTimeoutException e) {
+        log.warn("Request did not finish before the async request timeout");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.GATEWAY_TIMEOUT,
+                        "Request did not finish in time, it may still complete"));
+    }
+
+    private static ResponseEntity<ProblemDetail> serviceUnavailable(String detail) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, detail));
+    }
+}
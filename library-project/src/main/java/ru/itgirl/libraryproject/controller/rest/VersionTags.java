@@ -0,0 +1,144 @@
+package ru.itgirl.libraryproject.controller.rest;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import ru.itgirl.libraryproject.config.GzipContentEncodingFilter;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class VersionTags {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private static final Pattern ENTITY_TAG = Pattern.compile("(W/)?(\"[^\"]*\")");
+
+    // In the order the message converters are consulted for Accept: */*
+    private static final Map<MediaType, String> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put(MediaType.APPLICATION_JSON, "json");
+        FORMATS.put(MediaType.APPLICATION_CBOR, "cbor");
+        FORMATS.put(MediaType.parseMediaType("application/x-jackson-smile"), "smile");
+    }
+
+    private VersionTags() {
+    }
+
+    // no-cache instead of the default no-store lets clients keep the body and revalidate it with If-None-Match.
+    // The tag is strong and names one representation: the version vector, the negotiated format and the content
+    // coding. Tomcat does not compress responses with a strong tag, so GzipContentEncodingFilter does it here.
+    // Handlers check the tag before calling the lookup, so a revalidation costs the version-vector query alone.
+    static boolean notModified(WebRequest request, String versionTag) {
+        if (versionTag == null) {
+            return false;
+        }
+        Representation representation = Representation.of(request);
+        boolean notModified = request.checkNotModified(representation.etag(versionTag));
+        if (request instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse() != null) {
+            servletWebRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue());
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!notModified && representation.gzip()) {
+                servletWebRequest.getResponse().setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        return notModified;
+    }
+
+    // Same contract for handlers running on a bulkhead thread, where the WebRequest is no longer usable:
+    // the headers are read on the request thread and the body is only loaded when the tag has changed
+    static Conditional conditional(WebRequest request) {
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        return new Conditional(ifNoneMatch == null ? List.of() : List.of(ifNoneMatch), Representation.of(request));
+    }
+
+    // If-None-Match is a list of entity tags, possibly over several header lines, compared weakly: W/"x" matches "x".
+    // A lone * matches any current representation.
+    static boolean anyMatches(List<String> ifNoneMatch, String etag) {
+        for (String header : ifNoneMatch) {
+            if (header.trim().equals("*")) {
+                return true;
+            }
+            Matcher entityTag = ENTITY_TAG.matcher(header);
+            while (entityTag.find()) {
+                if (entityTag.group(2).equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    record Conditional(List<String> ifNoneMatch, Representation representation) {
+
+        <T> ResponseEntity<T> respond(String versionTag, Supplier<T> body) {
+            if (versionTag == null) {
+                return ResponseEntity.ok(body.get());
+            }
+            String etag = representation.etag(versionTag);
+            boolean notModified = anyMatches(ifNoneMatch, etag);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                    .eTag(etag)
+                    .cacheControl(CACHE_CONTROL)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            if (notModified) {
+                return response.build();
+            }
+            if (representation.gzip()) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(body.get());
+        }
+    }
+
+    record Representation(String format, boolean gzip) {
+
+        static Representation of(WebRequest request) {
+            boolean gzipAvailable = request.getAttribute(GzipContentEncodingFilter.AVAILABLE,
+                    RequestAttributes.SCOPE_REQUEST) != null;
+            return new Representation(format(request.getHeaderValues(HttpHeaders.ACCEPT)),
+                    gzipAvailable && ContentCodings.acceptsGzip(request.getHeaderValues(HttpHeaders.ACCEPT_ENCODING)));
+        }
+
+        String etag(String versionTag) {
+            return "\"" + versionTag + "-" + format + "-" + (gzip ? "gzip" : "identity") + "\"";
+        }
+
+        // The most preferred acceptable format; a request nothing matches is answered with 406 before a body is sent
+        private static String format(String[] accept) {
+            if (accept == null) {
+                return FORMATS.values().iterator().next();
+            }
+            try {
+                List<MediaType> accepted = MediaType.parseMediaTypes(List.of(accept)).stream()
+                        .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                        .toList();
+                for (MediaType mediaType : accepted) {
+                    if (mediaType.getQualityValue() > 0) {
+                        for (Map.Entry<MediaType, String> format : FORMATS.entrySet()) {
+                            if (mediaType.includes(format.getKey())) {
+                                return format.getValue();
+                            }
+                        }
+                    }
+                }
+            } catch (InvalidMediaTypeException e) {
+                // Rejected by content negotiation
+            }
+            return FORMATS.values().iterator().next();
+        }
+    }
+}
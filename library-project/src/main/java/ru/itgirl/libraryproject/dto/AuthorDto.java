@@ -1,5 +1,6 @@
 package ru.itgirl.libraryproject.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -7,13 +8,19 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
-@Builder
+@Builder(toBuilder = true)
 
 public class AuthorDto {
     private Long id;
     private String name;
     private String surname;
     private List<BookDto> books;
+    // Only set on authors read through the entity; send it back in AuthorUpdateDto to update this exact version
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
 
-   }
+    public AuthorDto(Long id, String name, String surname, List<BookDto> books) {
+        this(id, name, surname, books, null);
+    }
+}
 
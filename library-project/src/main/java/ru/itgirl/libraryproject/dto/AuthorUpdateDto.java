@@ -19,5 +19,10 @@ public class AuthorUpdateDto {
     private String name;
     @NotBlank(message = "Необходимо указать фамилию")
     private String surname;
+    // Optional: when given, the update is rejected with 409 unless the author is still at this version
+    private Long version;
 
+    public AuthorUpdateDto(Long id, String name, String surname) {
+        this(id, name, surname, null);
+    }
 }
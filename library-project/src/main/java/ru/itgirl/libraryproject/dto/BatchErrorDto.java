@@ -0,0 +1,18 @@
+package ru.itgirl.libraryproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+
+public class BatchErrorDto {
+
+    private int index;
+    private String message;
+
+}
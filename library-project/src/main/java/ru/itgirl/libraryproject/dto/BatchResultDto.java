@@ -0,0 +1,21 @@
+package ru.itgirl.libraryproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+
+public class BatchResultDto {
+
+    private int created;
+    private List<Long> ids;
+    private List<BatchErrorDto> errors;
+
+}
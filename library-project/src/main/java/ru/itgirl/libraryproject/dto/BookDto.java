@@ -1,5 +1,6 @@
 package ru.itgirl.libraryproject.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -7,11 +8,18 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
-@Builder
+@Builder(toBuilder = true)
 
 public class BookDto {
     private Long id;
     private String name;
     private String genre;
     private List<AuthorDto> authors;
+    // Only set on books read through the entity; send it back in BookUpdateDto to update this exact version
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    public BookDto(Long id, String name, String genre, List<AuthorDto> authors) {
+        this(id, name, genre, authors, null);
+    }
 }
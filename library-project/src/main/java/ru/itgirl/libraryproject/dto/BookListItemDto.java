@@ -0,0 +1,18 @@
+package ru.itgirl.libraryproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of the /books page, selected column by column without loading the entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+
+public class BookListItemDto {
+    private Long id;
+    private String name;
+    private String genre;
+}
@@ -19,4 +19,10 @@ public class BookUpdateDto {
     @Size(min = 1, max = 80)
     private String name;
     private Long genre_id;
+    // Optional: when given, the update is rejected with 409 unless the book is still at this version
+    private Long version;
+
+    public BookUpdateDto(Long id, String name, Long genre_id) {
+        this(id, name, genre_id, null);
+    }
 }
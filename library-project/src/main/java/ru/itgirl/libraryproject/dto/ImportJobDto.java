@@ -0,0 +1,31 @@
+package ru.itgirl.libraryproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+
+public class ImportJobDto {
+
+    private Long id;
+    private String source;
+    private String format;
+    private String status;
+    private long recordsRead;
+    private long booksCreated;
+    private long authorsCreated;
+    private long linksCreated;
+    private long rejected;
+    private long recordsPerSecond;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,43 @@
+package ru.itgirl.libraryproject.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lets one in `sampleRate` ENTITY events through even when their level is disabled, before the message is formatted
+public class EntityLogSampler extends TurboFilter {
+
+    private final AtomicLong events = new AtomicLong();
+
+    private int sampleRate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || marker == null || !marker.contains(LogMarkers.ENTITY)
+                || level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        return events.incrementAndGet() % sampleRate == 0 ? FilterReply.ACCEPT : FilterReply.DENY;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void start() {
+        if (sampleRate < 1) {
+            addError("sampleRate must be at least 1");
+            return;
+        }
+        super.start();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.itgirl.libraryproject.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+public final class LogMarkers {
+
+    // Per-entity lines on lookup hot paths; sampled by EntityLogSampler in the async-logging profile
+    public static final Marker ENTITY = MarkerFactory.getMarker("ENTITY");
+
+    private LogMarkers() {
+    }
+
+    public static long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+}
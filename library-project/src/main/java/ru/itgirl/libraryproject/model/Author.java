@@ -2,6 +2,9 @@ package ru.itgirl.libraryproject.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.itgirl.libraryproject.service.CatalogCacheListener;
 
 import java.util.Set;
 
@@ -10,12 +13,15 @@ import java.util.Set;
 @Getter
 @Builder
 @Entity
+@EntityListeners(CatalogCacheListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 public class Author {
 
     @Id
     @Setter
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_id")
+    @SequenceGenerator(name = "author_id", sequenceName = "author_id_seq", allocationSize = 50)
     private Long id;
 
     @Setter
@@ -27,8 +33,12 @@ public class Author {
     private String surname;
 
     @Setter
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(mappedBy = "authors")
     private Set<Book> books;
 
+    @Version
+    private Long version;
+
 
 }
@@ -2,6 +2,9 @@ package ru.itgirl.libraryproject.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.itgirl.libraryproject.service.CatalogCacheListener;
 
 import java.util.Set;
 
@@ -11,12 +14,15 @@ import java.util.Set;
 @Setter
 @Builder
 @Entity
+@EntityListeners(CatalogCacheListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 public class Book {
 
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id")
+    @SequenceGenerator(name = "book_id", sequenceName = "book_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,6 +32,7 @@ public class Book {
     @JoinColumn(name = "genre_id")
     private Genre genre;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "author_book",
@@ -33,5 +40,8 @@ public class Book {
             inverseJoinColumns = @JoinColumn(name = "author_id", referencedColumnName = "id"))
     private Set<Author> authors;
 
+    @Version
+    private Long version;
+
 
 }
@@ -0,0 +1,53 @@
+package ru.itgirl.libraryproject.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.itgirl.libraryproject.service.CatalogFormat;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String source;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CatalogFormat format;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImportStatus status;
+
+    private long recordsRead;
+
+    private long booksCreated;
+
+    private long authorsCreated;
+
+    private long linksCreated;
+
+    private long rejected;
+
+    private long elapsedMs;
+
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,8 @@
+package ru.itgirl.libraryproject.model;
+
+public enum ImportStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
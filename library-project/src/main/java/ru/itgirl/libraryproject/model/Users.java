@@ -2,12 +2,14 @@ package ru.itgirl.libraryproject.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import ru.itgirl.libraryproject.security.UsersCredentialCacheListener;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Getter
 @Entity
+@EntityListeners(UsersCredentialCacheListener.class)
 @Data
 
 public class Users {
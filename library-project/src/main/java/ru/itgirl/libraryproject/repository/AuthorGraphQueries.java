@@ -0,0 +1,11 @@
+package ru.itgirl.libraryproject.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.itgirl.libraryproject.model.Author;
+
+import java.util.Optional;
+
+public interface AuthorGraphQueries {
+
+    Optional<Author> findOneWithBooks(Specification<Author> specification);
+}
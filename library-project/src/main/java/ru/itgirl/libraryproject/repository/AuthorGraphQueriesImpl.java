@@ -0,0 +1,19 @@
+package ru.itgirl.libraryproject.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.itgirl.libraryproject.model.Author;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class AuthorGraphQueriesImpl implements AuthorGraphQueries {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Author> findOneWithBooks(Specification<Author> specification) {
+        return FetchGraphQueries.findOne(entityManager, Author.class, specification, "books", "books.genre");
+    }
+}
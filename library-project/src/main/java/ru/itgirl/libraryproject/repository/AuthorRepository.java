@@ -1,17 +1,84 @@
 package ru.itgirl.libraryproject.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itgirl.libraryproject.model.Author;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AuthorRepository extends JpaRepository<Author, Long>, JpaSpecificationExecutor<Author> {
+public interface AuthorRepository extends JpaRepository<Author, Long>, JpaSpecificationExecutor<Author>,
+        AuthorGraphQueries {
 
+    @EntityGraph(attributePaths = {"books", "books.genre"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Author> findAuthorBySurname(String surname);
 
     @Query(nativeQuery = true, value = "select * from author where surname = ?")
     Optional<Author> findAuthorBySurnameBySql(String surname);
 
+    // The DTO read paths load their graph through these finders; findById and findAll keep the default plan
+    @EntityGraph(attributePaths = {"books", "books.genre"})
+    Optional<Author> findWithBooksById(Long id);
+
+    @EntityGraph(attributePaths = {"books", "books.genre"})
+    @Query("select a from Author a")
+    List<Author> findAllWithBooks();
+
+    // Books and their genres are left to batch fetching: a collection fetch join would defeat the limit
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select a from Author a order by a.id")
+    Stream<Author> streamAll();
+
+    @Query("select distinct a from Author a left join fetch a.books b left join fetch b.genre where a in :authors")
+    List<Author> fetchBooks(@Param("authors") List<Author> authors);
+
+    @Query(nativeQuery = true, value = "Select * from author where lower(surname) collate \"C\" like lower(:pattern) || '%' "
+            + "order by lower(surname) collate \"C\", id limit :limit offset :offset")
+    List<Author> searchBySurnamePrefix(@Param("pattern") String pattern, @Param("limit") int limit, @Param("offset") long offset);
+
+    // Contains, fuzzy and full-text matches are ranked over the whole match set before the page is cut
+    @Query(nativeQuery = true, value = "Select * from author where lower(surname) like '%' || lower(:pattern) || '%' "
+            + "order by strpos(lower(surname), lower(:query)), length(surname), id limit :limit offset :offset")
+    List<Author> searchBySurnameContaining(@Param("pattern") String pattern, @Param("query") String query,
+                                           @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(nativeQuery = true, value = "Select * from author where lower(surname) %> lower(:query) "
+            + "order by word_similarity(lower(:query), lower(surname)) desc, id limit :limit offset :offset")
+    List<Author> searchBySurnameFuzzy(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(nativeQuery = true, value = "Select * from author where to_tsvector('russian', surname) @@ websearch_to_tsquery('russian', :query) "
+            + "order by ts_rank(to_tsvector('russian', surname), websearch_to_tsquery('russian', :query)) desc, id "
+            + "limit :limit offset :offset")
+    List<Author> searchBySurnameFullText(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    // Version vector of the author aggregate: the author, their books and the books' genres
+    @Query(nativeQuery = true, value = "Select md5(string_agg(concat_ws(':', a.id, a.version, b.id, b.version, g.id, g.version), ',' "
+            + "order by b.id)) from author a left join author_book ab on ab.author_id = a.id "
+            + "left join book b on b.id = ab.book_id left join genre g on g.id = b.genre_id where a.id = :id")
+    String findVersionTagById(@Param("id") Long id);
+
+    // Set-based delete in the same form as BookRepository.bulkDeleteByIds: one statement removes the authors with
+    // their book links, so callers evict what it returns through CatalogDtoCache.authorsDeleted
+    @Transactional
+    @Query(nativeQuery = true, value = "With links as (Delete from author_book where author_id = any(cast(:ids as bigint[])) "
+            + "returning author_id, book_id), authors as (Delete from author where id = any(cast(:ids as bigint[])) returning id) "
+            + "Select (Select count(*) from authors) as deleted, (Select count(*) from links) as links, "
+            + "(Select string_agg(cast(id as text), ',') from authors) as \"deletedIds\", "
+            + "(Select string_agg(distinct cast(book_id as text), ',') from links) as \"linkedIds\", "
+            + "cast(null as text) as \"genreIds\"")
+    BatchDeleteCounts bulkDeleteByIds(@Param("ids") Long[] ids);
 }
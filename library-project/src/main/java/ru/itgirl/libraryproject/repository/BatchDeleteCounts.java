@@ -0,0 +1,41 @@
+package ru.itgirl.libraryproject.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Rows removed by a set-based delete: the books or authors themselves and their author_book links. The ids come back
+// as comma-separated lists, null when there are none, so the caches can drop exactly those rows.
+public interface BatchDeleteCounts {
+
+    long getDeleted();
+
+    long getLinks();
+
+    // The deleted books or authors
+    String getDeletedIds();
+
+    // The authors of deleted books, or the books of deleted authors
+    String getLinkedIds();
+
+    // The genres of deleted books; always null for authors
+    String getGenreIds();
+
+    default List<Long> deletedIds() {
+        return parse(getDeletedIds());
+    }
+
+    default List<Long> linkedIds() {
+        return parse(getLinkedIds());
+    }
+
+    default List<Long> genreIds() {
+        return parse(getGenreIds());
+    }
+
+    private static List<Long> parse(String ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(ids.split(",")).map(Long::valueOf).toList();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.itgirl.libraryproject.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.itgirl.libraryproject.model.Book;
+
+import java.util.Optional;
+
+public interface BookGraphQueries {
+
+    Optional<Book> findOneWithAuthors(Specification<Book> specification);
+}
@@ -0,0 +1,19 @@
+package ru.itgirl.libraryproject.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.itgirl.libraryproject.model.Book;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class BookGraphQueriesImpl implements BookGraphQueries {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Book> findOneWithAuthors(Specification<Book> specification) {
+        return FetchGraphQueries.findOne(entityManager, Book.class, specification, "genre", "authors");
+    }
+}
@@ -1,17 +1,117 @@
 package ru.itgirl.libraryproject.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itgirl.libraryproject.dto.BookListItemDto;
 import ru.itgirl.libraryproject.model.Book;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
-    
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>,
+        BookGraphQueries {
+
+    @EntityGraph(attributePaths = {"genre", "authors"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Book> findBookByName(String name);
 
     @Query (nativeQuery = true, value = "Select * from book where name = ?")
     Optional<Book> findBookByNameBySql(String name);
 
+    // The DTO read paths load their graph through these finders; findById and findAll keep the default plan
+    @EntityGraph(attributePaths = {"genre", "authors"})
+    Optional<Book> findWithAuthorsById(Long id);
+
+    @EntityGraph(attributePaths = {"genre", "authors"})
+    @Query("select b from Book b")
+    List<Book> findAllWithAuthors();
+
+    // Authors are left to batch fetching: a collection fetch join would defeat the limit
+    @EntityGraph(attributePaths = "genre")
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select b from Book b join fetch b.genre order by b.id")
+    Stream<Book> streamAll();
+
+    @Query("select new ru.itgirl.libraryproject.dto.BookListItemDto(b.id, b.name, g.name) "
+            + "from Book b join b.genre g where b.id > :afterId order by b.id")
+    List<BookListItemDto> findListItemsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.itgirl.libraryproject.dto.BookListItemDto(b.id, b.name, g.name) "
+            + "from Book b join b.genre g order by b.id")
+    Stream<BookListItemDto> streamListItems();
+
+    @Query("select distinct b from Book b left join fetch b.genre left join fetch b.authors where b in :books")
+    List<Book> fetchAuthors(@Param("books") List<Book> books);
+
+    @Query(nativeQuery = true, value = "Select * from book where lower(name) collate \"C\" like lower(:pattern) || '%' "
+            + "order by lower(name) collate \"C\", id limit :limit offset :offset")
+    List<Book> searchByNamePrefix(@Param("pattern") String pattern, @Param("limit") int limit, @Param("offset") long offset);
+
+    // Contains, fuzzy and full-text matches are ranked over the whole match set before the page is cut
+    @Query(nativeQuery = true, value = "Select * from book where lower(name) like '%' || lower(:pattern) || '%' "
+            + "order by strpos(lower(name), lower(:query)), length(name), id limit :limit offset :offset")
+    List<Book> searchByNameContaining(@Param("pattern") String pattern, @Param("query") String query,
+                                      @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(nativeQuery = true, value = "Select * from book where lower(name) %> lower(:query) "
+            + "order by word_similarity(lower(:query), lower(name)) desc, id limit :limit offset :offset")
+    List<Book> searchByNameFuzzy(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(nativeQuery = true, value = "Select * from book where to_tsvector('russian', name) @@ websearch_to_tsquery('russian', :query) "
+            + "order by ts_rank(to_tsvector('russian', name), websearch_to_tsquery('russian', :query)) desc, id "
+            + "limit :limit offset :offset")
+    List<Book> searchByNameFullText(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    // Version vector of the book aggregate: the book, its genre and its authors
+    @Query(nativeQuery = true, value = "Select md5(string_agg(concat_ws(':', b.id, b.version, g.id, g.version, a.id, a.version), ',' "
+            + "order by b.id, a.id)) from book b join genre g on g.id = b.genre_id "
+            + "left join author_book ab on ab.book_id = b.id left join author a on a.id = ab.author_id where b.name = :name")
+    String findVersionTagByName(@Param("name") String name);
+
+    // Set-based deletes that bypass the persistence context and the second-level cache, so callers evict what they
+    // return through CatalogDtoCache.booksDeleted. Each is a single statement: the books are chosen and deleted with
+    // their author links against one snapshot, and the foreign key is checked at its end.
+    @Transactional
+    @Query(nativeQuery = true, value = "With links as (Delete from author_book where book_id = any(cast(:ids as bigint[])) "
+            + "returning book_id, author_id), books as (Delete from book where id = any(cast(:ids as bigint[])) "
+            + "returning id, genre_id) "
+            + "Select (Select count(*) from books) as deleted, (Select count(*) from links) as links, "
+            + "(Select string_agg(cast(id as text), ',') from books) as \"deletedIds\", "
+            + "(Select string_agg(distinct cast(author_id as text), ',') from links) as \"linkedIds\", "
+            + "(Select string_agg(distinct cast(genre_id as text), ',') from books) as \"genreIds\"")
+    BatchDeleteCounts bulkDeleteByIds(@Param("ids") Long[] ids);
+
+    @Transactional
+    @Query(nativeQuery = true, value = "With links as (Delete from author_book where book_id in "
+            + "(Select id from book where genre_id = :genreId) returning book_id, author_id), "
+            + "books as (Delete from book where genre_id = :genreId returning id, genre_id) "
+            + "Select (Select count(*) from books) as deleted, (Select count(*) from links) as links, "
+            + "(Select string_agg(cast(id as text), ',') from books) as \"deletedIds\", "
+            + "(Select string_agg(distinct cast(author_id as text), ',') from links) as \"linkedIds\", "
+            + "(Select string_agg(distinct cast(genre_id as text), ',') from books) as \"genreIds\"")
+    BatchDeleteCounts bulkDeleteByGenreId(@Param("genreId") Long genreId);
+
+    @Transactional
+    @Query(nativeQuery = true, value = "With targets as (Select book_id from author_book where author_id = :authorId), "
+            + "links as (Delete from author_book where book_id in (Select book_id from targets) returning book_id, author_id), "
+            + "books as (Delete from book where id in (Select book_id from targets) returning id, genre_id) "
+            + "Select (Select count(*) from books) as deleted, (Select count(*) from links) as links, "
+            + "(Select string_agg(cast(id as text), ',') from books) as \"deletedIds\", "
+            + "(Select string_agg(distinct cast(author_id as text), ',') from links) as \"linkedIds\", "
+            + "(Select string_agg(distinct cast(genre_id as text), ',') from books) as \"genreIds\"")
+    BatchDeleteCounts bulkDeleteByAuthorId(@Param("authorId") Long authorId);
 }
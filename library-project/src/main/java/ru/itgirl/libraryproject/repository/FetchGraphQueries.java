@@ -0,0 +1,60 @@
+package ru.itgirl.libraryproject.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+
+// Specification lookups with a fetch graph, for the finders whose graph must not leak into the inherited
+// findOne(Specification). Attribute paths are dotted as in @EntityGraph.
+final class FetchGraphQueries {
+
+    private FetchGraphQueries() {
+    }
+
+    static <T> Optional<T> findOne(EntityManager entityManager, Class<T> type, Specification<T> specification,
+                                   String... attributePaths) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<T> results = entityManager.createQuery(query)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph(entityManager, type, attributePaths))
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, results.size());
+        }
+        return results.stream().findFirst();
+    }
+
+    private static <T> EntityGraph<T> graph(EntityManager entityManager, Class<T> type, String... attributePaths) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(type);
+        for (String path : attributePaths) {
+            String[] attributes = path.split("\\.");
+            if (attributes.length == 1) {
+                graph.addAttributeNodes(attributes[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(attributes[0]);
+            for (int i = 1; i < attributes.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(attributes[i]);
+            }
+            subgraph.addAttributeNodes(attributes[attributes.length - 1]);
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.itgirl.libraryproject.repository;
+
+public record GenreCatalogRow(Long genreId,
+                              String genreName,
+                              Long bookId,
+                              String bookName,
+                              Long authorId,
+                              String authorName,
+                              String authorSurname) {
+}
@@ -1,7 +1,22 @@
 package ru.itgirl.libraryproject.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.itgirl.libraryproject.model.Genre;
 
+import java.util.List;
+
 public interface GenreRepository extends JpaRepository<Genre, Long> {
+
+    @Query("select new ru.itgirl.libraryproject.repository.GenreCatalogRow(g.id, g.name, b.id, b.name, a.id, a.name, a.surname) "
+            + "from Genre g left join g.books b left join b.authors a "
+            + "where g.id = :id order by b.id, a.id")
+    List<GenreCatalogRow> findCatalogRowsById(@Param("id") Long id);
+
+    // Version vector of the genre aggregate: the genre, its books and the books' authors
+    @Query(nativeQuery = true, value = "Select md5(string_agg(concat_ws(':', g.id, g.version, b.id, b.version, a.id, a.version), ',' "
+            + "order by b.id, a.id)) from genre g left join book b on b.genre_id = g.id "
+            + "left join author_book ab on ab.book_id = b.id left join author a on a.id = ab.author_id where g.id = :id")
+    String findVersionTagById(@Param("id") Long id);
 }
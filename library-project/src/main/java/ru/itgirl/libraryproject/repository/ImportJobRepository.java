@@ -0,0 +1,7 @@
+package ru.itgirl.libraryproject.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.itgirl.libraryproject.model.ImportJob;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+}
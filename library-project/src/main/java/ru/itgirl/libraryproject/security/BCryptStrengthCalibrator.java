@@ -0,0 +1,83 @@
+package ru.itgirl.libraryproject.security;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// A configured library.security.bcrypt.strength is used as is. Otherwise the cost is calibrated at startup: each
+// candidate strength is timed over several verifies and the median is compared with the target.
+@Component
+@Slf4j
+public class BCryptStrengthCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+    @Getter
+    private final int strength;
+
+    @Autowired
+    public BCryptStrengthCalibrator(@Value("${library.security.bcrypt.strength:0}") int configuredStrength,
+                                    @Value("${library.security.bcrypt.target-verify-time:250ms}") Duration targetVerifyTime,
+                                    @Value("${library.security.bcrypt.min-strength:10}") int minStrength,
+                                    @Value("${library.security.bcrypt.max-strength:16}") int maxStrength,
+                                    @Value("${library.security.bcrypt.calibration-samples:5}") int samples) {
+        this(configuredStrength, targetVerifyTime, minStrength, maxStrength, samples,
+                BCryptStrengthCalibrator::measureVerifyNanos);
+    }
+
+    BCryptStrengthCalibrator(int configuredStrength, Duration targetVerifyTime, int minStrength, int maxStrength,
+                             int samples, VerifyTimer verifyTimer) {
+        if (configuredStrength > 0) {
+            this.strength = configuredStrength;
+            log.info("BCrypt strength configured to {}", configuredStrength);
+        } else {
+            this.strength = calibrate(targetVerifyTime, minStrength, maxStrength, Math.max(samples, 1), verifyTimer);
+        }
+    }
+
+    private static int calibrate(Duration targetVerifyTime, int minStrength, int maxStrength, int samples,
+                                 VerifyTimer verifyTimer) {
+        long targetNanos = targetVerifyTime.toNanos();
+        verifyTimer.verifyNanos(4, 1);
+
+        int strength = minStrength;
+        long medianNanos = medianVerifyNanos(strength, samples, verifyTimer);
+        // Every extra round doubles the cost, so stop before the next one would overshoot the target
+        while (strength < maxStrength && medianNanos * 2 <= targetNanos) {
+            strength++;
+            medianNanos = medianVerifyNanos(strength, samples, verifyTimer);
+        }
+        log.info("BCrypt strength calibrated to {} ({} ms median over {} verifies, target {} ms)",
+                strength, Duration.ofNanos(medianNanos).toMillis(), samples, targetVerifyTime.toMillis());
+        return strength;
+    }
+
+    private static long medianVerifyNanos(int strength, int samples, VerifyTimer verifyTimer) {
+        long[] nanos = verifyTimer.verifyNanos(strength, samples);
+        Arrays.sort(nanos);
+        return nanos[samples / 2];
+    }
+
+    private static long[] measureVerifyNanos(int strength, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    interface VerifyTimer {
+
+        long[] verifyNanos(int strength, int samples);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.itgirl.libraryproject.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+
+@Component
+@Slf4j
+public class CredentialCache {
+
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+    private final Cache<CredentialKey, Authentication> cache;
+
+    private final SecretKeySpec digestKey;
+
+    public CredentialCache(@Value("${library.security.credential-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${library.security.credential-cache.ttl:5m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+        // The key lives only in memory, so cached digests are useless outside this process
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+        log.info("Credential cache enabled: maximum size {}, ttl {}", maximumSize, ttl);
+    }
+
+    public Authentication get(String login, String password) {
+        return cache.getIfPresent(new CredentialKey(login, digest(password)));
+    }
+
+    public void put(String login, String password, Authentication authentication) {
+        cache.put(new CredentialKey(login, digest(password)), authentication);
+    }
+
+    public void evict(String login) {
+        cache.asMap().keySet().removeIf(key -> key.login().equals(login));
+        log.info("Evicted cached credentials for login {}", login);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private String digest(String password) {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Credential digest is not available", e);
+        }
+    }
+
+    private record CredentialKey(String login, String digest) {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.itgirl.libraryproject.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.itgirl.libraryproject.model.Users;
+
+@Component
+@RequiredArgsConstructor
+public class UsersCredentialCacheListener {
+
+    private final CredentialCache credentialCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evictCredentials(Users user) {
+        credentialCache.evict(user.getLogin());
+    }
+}
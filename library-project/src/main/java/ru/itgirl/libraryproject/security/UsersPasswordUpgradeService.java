@@ -0,0 +1,35 @@
+package ru.itgirl.libraryproject.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itgirl.libraryproject.model.Users;
+import ru.itgirl.libraryproject.repository.UsersRepository;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsersPasswordUpgradeService implements UserDetailsPasswordService {
+
+    private final UsersRepository usersRepository;
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        Users user = usersRepository.findByLogin(userDetails.getUsername());
+        if (user == null) {
+            log.error("Failed to upgrade password hash. User not found for login: {}", userDetails.getUsername());
+            return userDetails;
+        }
+        user.setPassword(newPassword);
+        usersRepository.save(user);
+        log.info("Password hash upgraded for login {}", user.getLogin());
+        return User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+}
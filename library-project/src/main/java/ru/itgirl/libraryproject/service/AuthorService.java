@@ -3,12 +3,19 @@ package ru.itgirl.libraryproject.service;
 import ru.itgirl.libraryproject.dto.AuthorCreateDto;
 import ru.itgirl.libraryproject.dto.AuthorDto;
 import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BatchDeleteResultDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface AuthorService {
     AuthorDto getAuthorById(Long id);
 
+    String getAuthorVersionTag(Long id);
+
     AuthorDto getBySurnameV1(String surname);
 
     AuthorDto getBySurnameV2(String surname);
@@ -17,10 +24,20 @@ public interface AuthorService {
 
     AuthorDto createAuthor (AuthorCreateDto authorCreateDto);
 
+    BatchResultDto createAuthors(List<AuthorCreateDto> authorCreateDtos);
+
     AuthorDto updateAuthor (AuthorUpdateDto authorUpdateDto);
 
     AuthorDto deleteAuthor (Long id);
 
+    BatchDeleteResultDto deleteAuthors(List<Long> ids);
+
     List<AuthorDto> getAllAuthors();
 
+    PageDto<AuthorDto> getAuthorsPage(String cursor, int size);
+
+    List<AuthorDto> searchAuthors(String query, SearchMode mode, int page, int size);
+
+    void streamAllAuthors(Consumer<Stream<AuthorDto>> consumer);
+
 }
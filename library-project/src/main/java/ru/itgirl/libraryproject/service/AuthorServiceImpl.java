@@ -1,76 +1,115 @@
 package ru.itgirl.libraryproject.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itgirl.libraryproject.dto.AuthorCreateDto;
 import ru.itgirl.libraryproject.dto.AuthorDto;
 import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
-import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BatchDeleteResultDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
+import ru.itgirl.libraryproject.dto.PageDto;
+import ru.itgirl.libraryproject.logging.LogMarkers;
 import ru.itgirl.libraryproject.model.Author;
 import ru.itgirl.libraryproject.repository.AuthorRepository;
+import ru.itgirl.libraryproject.repository.BatchDeleteCounts;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("library.service")
+@Transactional(readOnly = true)
 public class AuthorServiceImpl implements AuthorService {
 
     private final AuthorRepository authorRepository;
 
+    private final EntityManager entityManager;
+
+    private final CatalogNameFilter catalogNameFilter;
+
+    private final CatalogDtoCache catalogDtoCache;
+
+    private final BatchWriter batchWriter;
+
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.AUTHORS_BY_ID, key = "#id", sync = true)
     public AuthorDto getAuthorById(Long id) {
-        log.info("Try to find author by id {}", id);
-        Optional<Author> author = authorRepository.findById(id);
+        log.debug(LogMarkers.ENTITY, "Try to find author by id {}", id);
+        Optional<Author> author = authorRepository.findWithBooksById(id);
         if (author.isPresent()) {
-            AuthorDto authorDto = convertEntityToDto(author.get());
-            log.info("Author: {}", authorDto.toString());
+            AuthorDto authorDto = CatalogDtoMapper.authorToDto(author.get());
+            log.debug(LogMarkers.ENTITY, "Author: {}", authorDto);
             return authorDto;
         } else {
-            log.error("Author with id: {} not found", id);
-            throw new IllegalStateException("Author not found");
+            log.debug(LogMarkers.ENTITY, "Author with id: {} not found", id);
+            throw new NotFoundException("Author not found");
         }
     }
 
+    @Override
+    public String getAuthorVersionTag(Long id) {
+        return authorRepository.findVersionTagById(id);
+    }
+
 
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.AUTHORS_BY_SURNAME, key = "{'v1', #surname}", sync = true)
     public AuthorDto getBySurnameV1(String surname) {
-        log.info("Try to find author by surname {}", surname);
+        log.debug(LogMarkers.ENTITY, "Try to find author by surname {}", surname);
+        if (!catalogNameFilter.mightContainAuthor(surname)) {
+            throw new NotFoundException("Author not found");
+        }
         Optional<Author> author = authorRepository.findAuthorBySurname(surname);
         if (author.isPresent()) {
-            AuthorDto authorDto = convertEntityToDto(author.get());
-            log.info("Author: {}", authorDto.toString());
+            AuthorDto authorDto = CatalogDtoMapper.authorToDto(author.get());
+            log.debug(LogMarkers.ENTITY, "Author: {}", authorDto);
             return authorDto;
         } else {
-            log.error("Author with surname: {} not found", surname);
-            throw new IllegalStateException("Author not found");
+            log.debug(LogMarkers.ENTITY, "Author with surname: {} not found", surname);
+            throw new NotFoundException("Author not found");
         }
 
     }
 
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.AUTHORS_BY_SURNAME, key = "{'v2', #surname}", sync = true)
     public AuthorDto getBySurnameV2(String surname) {
-        log.info("Try to find author by surname {}", surname);
+        log.debug(LogMarkers.ENTITY, "Try to find author by surname {}", surname);
+        if (!catalogNameFilter.mightContainAuthor(surname)) {
+            throw new NotFoundException("Author not found");
+        }
         Optional<Author> author = authorRepository.findAuthorBySurnameBySql(surname);
         if (author.isPresent()) {
-            AuthorDto authorDto = convertEntityToDto(author.get());
-            log.info("Author: {}", authorDto.toString());
+            // The native row carries no associations; one query loads the books and their genres for the mapper
+            authorRepository.fetchBooks(List.of(author.get()));
+            AuthorDto authorDto = CatalogDtoMapper.authorToDto(author.get());
+            log.debug(LogMarkers.ENTITY, "Author: {}", authorDto);
             return authorDto;
         } else {
-            log.error("Author with surname: {} not found", surname);
-            throw new IllegalStateException("Author not found");
+            log.debug(LogMarkers.ENTITY, "Author with surname: {} not found", surname);
+            throw new NotFoundException("Author not found");
         }
     }
 
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.AUTHORS_BY_SURNAME, key = "{'v3', #surname}", sync = true)
     public AuthorDto getBySurnameV3(String surname) {
         Specification<Author> authorSpecification = Specification.where(new Specification<Author>() {
             @Override
@@ -80,88 +119,154 @@ public class AuthorServiceImpl implements AuthorService {
                 return criteriaBuilder.equal(root.get("surname"), surname);
             }
         });
-        log.info("Try to find author by surname {}", surname);
-        Optional<Author> author = authorRepository.findOne(authorSpecification);
+        log.debug(LogMarkers.ENTITY, "Try to find author by surname {}", surname);
+        if (!catalogNameFilter.mightContainAuthor(surname)) {
+            throw new NotFoundException("Author not found");
+        }
+        Optional<Author> author = authorRepository.findOneWithBooks(authorSpecification);
         if (author.isPresent()) {
-            AuthorDto authorDto = convertEntityToDto(author.get());
-            log.info("Author: {}", authorDto.toString());
+            AuthorDto authorDto = CatalogDtoMapper.authorToDto(author.get());
+            log.debug(LogMarkers.ENTITY, "Author: {}", authorDto);
             return authorDto;
         } else {
-            log.error("Author with surname: {} not found", surname);
-            throw new IllegalStateException("Author not found");
+            log.debug(LogMarkers.ENTITY, "Author with surname: {} not found", surname);
+            throw new NotFoundException("Author not found");
         }
     }
 
     @Override
+    @Transactional
     public AuthorDto createAuthor(AuthorCreateDto authorCreateDto) {
         log.info("Creating author: {}", authorCreateDto);
         Author author = authorRepository.save(convertDtoToEntity(authorCreateDto));
-        AuthorDto authorDto = convertEntityToDto(author);
+        AuthorDto authorDto = CatalogDtoMapper.authorToDto(author);
         log.info("Author created: {}", authorDto);
         return authorDto;
     }
 
+    // Chunks commit in their own transactions
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResultDto createAuthors(List<AuthorCreateDto> authorCreateDtos) {
+        log.info("Creating {} authors in batch", authorCreateDtos.size());
+        BatchResultDto result = batchWriter.persistAll(authorCreateDtos, this::convertDtoToEntity, Author::getId);
+        log.info("Authors batch finished: {} created, {} rejected", result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
+    @Override
+    @RetryOnOptimisticLock
+    @Transactional
     public AuthorDto updateAuthor(AuthorUpdateDto authorUpdateDto) {
         Optional<Author> authorOptional = authorRepository.findById(authorUpdateDto.getId());
         if (authorOptional.isPresent()) {
             Author author = authorOptional.get();
+            if (authorUpdateDto.getVersion() != null && !authorUpdateDto.getVersion().equals(author.getVersion())) {
+                log.info("Author {} is at version {}, update of version {} rejected", author.getId(), author.getVersion(),
+                        authorUpdateDto.getVersion());
+                throw new VersionConflictException("Author was changed concurrently", CatalogDtoMapper.authorToDto(author));
+            }
             author.setName(authorUpdateDto.getName());
             author.setSurname(authorUpdateDto.getSurname());
 
-            Author savedAuthor = authorRepository.save(author);
-            AuthorDto authorDto = convertEntityToDto(savedAuthor);
+            // Flushed here so a lost race surfaces before the response is built and the new version is returned
+            Author savedAuthor = authorRepository.saveAndFlush(author);
+            AuthorDto authorDto = CatalogDtoMapper.authorToDto(savedAuthor);
             log.info("Author updated: {}", authorDto);
             return authorDto;
         } else {
             log.error("Failed to update author. Author not found for id: {}", authorUpdateDto.getId());
-            throw new IllegalStateException("Author not update");
+            throw new NotFoundException("Author not update");
         }
     }
 
     @Override
+    @Transactional
     public AuthorDto deleteAuthor(Long id) {
         log.info("Deleting author: {}", id);
-        authorRepository.deleteById(id);
-        log.info("Author deleted: {}", id);
+        BatchDeleteCounts counts = BatchDeletes.deleteOne(id, authorRepository::bulkDeleteByIds, "Author not found");
+        catalogDtoCache.authorsDeleted(counts.deletedIds(), counts.linkedIds());
+        log.info("Author deleted: {} with {} book links", id, counts.getLinks());
         return null;
     }
 
+    @Override
+    @Transactional
+    public BatchDeleteResultDto deleteAuthors(List<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Author ids must be given");
+        }
+        long started = System.nanoTime();
+        BatchDeleteCounts counts = authorRepository.bulkDeleteByIds(ids.toArray(Long[]::new));
+        catalogDtoCache.authorsDeleted(counts.deletedIds(), counts.linkedIds());
+        log.info("Deleted {} authors and {} book links in {} ms", counts.getDeleted(), counts.getLinks(),
+                LogMarkers.elapsedMillis(started));
+        return new BatchDeleteResultDto(counts.getDeleted(), counts.getLinks());
+    }
+
     @Override
     public List<AuthorDto> getAllAuthors() {
-        log.info("Getting a list of all authors");
-        List<Author> authors = authorRepository.findAll();
-        return authors.stream()
-                .map(this::convertEntityToDto)
-                .peek(authorDto -> log.info("Retrieved author: {}", authorDto))
+        long started = System.nanoTime();
+        List<Author> authors = authorRepository.findAllWithBooks();
+        List<AuthorDto> authorDtos = authors.stream()
+                .map(CatalogDtoMapper::authorToDto)
                 .collect(Collectors.toList());
+        log.info("Retrieved {} authors in {} ms", authorDtos.size(), LogMarkers.elapsedMillis(started));
+        return authorDtos;
     }
 
-    private Author convertDtoToEntity(AuthorCreateDto authorCreateDto) {
-        return Author.builder()
-                .name(authorCreateDto.getName())
-                .surname(authorCreateDto.getSurname())
-                .build();
+    @Override
+    public PageDto<AuthorDto> getAuthorsPage(String cursor, int size) {
+        Long afterId = PageCursor.decode(cursor);
+        int pageSize = PageCursor.boundSize(size);
+        long started = System.nanoTime();
+        List<Author> authors = authorRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageCursor.lookahead(pageSize));
+        PageDto<AuthorDto> page = PageCursor.toPage(authors, pageSize, Author::getId, CatalogDtoMapper::authorToDto);
+        log.info("Retrieved a page of {} authors after id {} in {} ms", page.getItems().size(), afterId,
+                LogMarkers.elapsedMillis(started));
+        return page;
     }
 
-    private AuthorDto convertEntityToDto(Author author) {
-        List<BookDto> bookDtoList = null;
-        if (author.getBooks() != null) {
-            bookDtoList = author.getBooks().stream()
-                    .map(book -> BookDto.builder()
-                            .genre(book.getGenre().getName())
-                            .name(book.getName())
-                            .id(book.getId())
-                            .build())
-                    .toList();
+    @Override
+    public List<AuthorDto> searchAuthors(String query, SearchMode mode, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        String trimmed = query.trim();
+        int pageSize = PageCursor.boundSize(size);
+        long offset = (long) page * pageSize;
+        long started = System.nanoTime();
+        List<Author> authors = switch (mode) {
+            case PREFIX -> authorRepository.searchBySurnamePrefix(SearchMode.escapeLike(trimmed), pageSize, offset);
+            case CONTAINS -> authorRepository.searchBySurnameContaining(SearchMode.escapeLike(trimmed), trimmed, pageSize, offset);
+            case FUZZY -> authorRepository.searchBySurnameFuzzy(trimmed, pageSize, offset);
+            case FULL_TEXT -> authorRepository.searchBySurnameFullText(trimmed, pageSize, offset);
+        };
+        List<AuthorDto> authorDtos = authors.stream().map(CatalogDtoMapper::authorToDto).toList();
+        log.info("Found {} authors by surname '{}' in mode {}, page {} of size {}, in {} ms", authorDtos.size(), trimmed, mode,
+                page, pageSize, LogMarkers.elapsedMillis(started));
+        return authorDtos;
+    }
 
+    @Override
+    public void streamAllAuthors(Consumer<Stream<AuthorDto>> consumer) {
+        long started = System.nanoTime();
+        AtomicInteger rows = new AtomicInteger();
+        try (Stream<Author> authors = authorRepository.streamAll()) {
+            consumer.accept(StreamChunks.mapDetached(authors, entityManager, authorRepository::fetchBooks,
+                            CatalogDtoMapper::authorToDto)
+                    .peek(authorDto -> rows.incrementAndGet()));
         }
-        AuthorDto authorDto = AuthorDto.builder()
-                .id(author.getId())
-                .name(author.getName())
-                .surname(author.getSurname())
-                .books(bookDtoList)
+        log.info("Streamed {} authors in {} ms", rows.get(), LogMarkers.elapsedMillis(started));
+    }
+
+    private Author convertDtoToEntity(AuthorCreateDto authorCreateDto) {
+        return Author.builder()
+                .name(authorCreateDto.getName())
+                .surname(authorCreateDto.getSurname())
                 .build();
-        return authorDto;
     }
 }
@@ -0,0 +1,21 @@
+package ru.itgirl.libraryproject.service;
+
+import ru.itgirl.libraryproject.repository.BatchDeleteCounts;
+
+import java.util.function.Function;
+
+final class BatchDeletes {
+
+    private BatchDeletes() {
+    }
+
+    // A single delete runs the batch statement with one id, so the row's links go with it; a missing row is a 404,
+    // as it is for a lookup
+    static BatchDeleteCounts deleteOne(Long id, Function<Long[], BatchDeleteCounts> bulkDelete, String notFoundMessage) {
+        BatchDeleteCounts counts = bulkDelete.apply(new Long[]{id});
+        if (counts.getDeleted() == 0) {
+            throw new NotFoundException(notFoundMessage);
+        }
+        return counts;
+    }
+}
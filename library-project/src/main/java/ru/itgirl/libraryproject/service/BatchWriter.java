@@ -0,0 +1,127 @@
+package ru.itgirl.libraryproject.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.BatchErrorDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class BatchWriter {
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final int chunkSize;
+
+    private final int maxItems;
+
+    public BatchWriter(Validator validator,
+                       PlatformTransactionManager transactionManager,
+                       EntityManager entityManager,
+                       @Value("${library.batch.chunk-size:1000}") int chunkSize,
+                       @Value("${library.batch.max-items:100000}") int maxItems) {
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public <D, E> BatchResultDto persistAll(List<D> items, Function<D, E> toEntity, Function<E, Long> idOf) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxItems + " items");
+        }
+        Long[] ids = new Long[items.size()];
+        List<BatchErrorDto> errors = new ArrayList<>();
+        List<Item<D, E>> chunk = new ArrayList<>(chunkSize);
+        for (int index = 0; index < items.size(); index++) {
+            D item = items.get(index);
+            Set<ConstraintViolation<D>> violations = item == null ? Set.of() : validator.validate(item);
+            if (item == null || !violations.isEmpty()) {
+                errors.add(new BatchErrorDto(index, item == null ? "Item must not be null" : describe(violations)));
+                continue;
+            }
+            try {
+                chunk.add(new Item<>(index, item, toEntity.apply(item)));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                errors.add(new BatchErrorDto(index, e.getMessage()));
+                continue;
+            }
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, toEntity, idOf, ids, errors);
+                chunk.clear();
+            }
+        }
+        writeChunk(chunk, toEntity, idOf, ids, errors);
+        errors.sort(Comparator.comparingInt(BatchErrorDto::getIndex));
+        return BatchResultDto.builder()
+                .created(items.size() - errors.size())
+                .ids(Arrays.asList(ids))
+                .errors(errors)
+                .build();
+    }
+
+    private <D, E> void writeChunk(List<Item<D, E>> chunk, Function<D, E> toEntity, Function<E, Long> idOf,
+                                   Long[] ids, List<BatchErrorDto> errors) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            persist(chunk.stream().map(Item::entity).toList());
+            chunk.forEach(item -> ids[item.index()] = idOf.apply(item.entity()));
+        } catch (RuntimeException e) {
+            log.warn("Batch chunk of {} items rejected, retrying one by one: {}", chunk.size(),
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (Item<D, E> item : chunk) {
+                // The failed attempt already assigned an id, so the retry needs a fresh entity
+                E entity = toEntity.apply(item.source());
+                try {
+                    persist(List.of(entity));
+                    ids[item.index()] = idOf.apply(entity);
+                } catch (RuntimeException itemError) {
+                    errors.add(new BatchErrorDto(item.index(), NestedExceptionUtils.getMostSpecificCause(itemError).getMessage()));
+                }
+            }
+        }
+    }
+
+    private void persist(List<?> entities) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            entities.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private static <D> String describe(Set<ConstraintViolation<D>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private record Item<D, E>(int index, D source, E entity) {
+    }
+}
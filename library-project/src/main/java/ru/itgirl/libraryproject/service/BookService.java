@@ -1,10 +1,16 @@
 package ru.itgirl.libraryproject.service;
 
+import ru.itgirl.libraryproject.dto.BatchDeleteResultDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
 import ru.itgirl.libraryproject.dto.BookCreateDto;
 import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BookListItemDto;
 import ru.itgirl.libraryproject.dto.BookUpdateDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface BookService {
 
@@ -14,13 +20,29 @@ public interface BookService {
 
     BookDto getBookByNameV3(String name);
 
+    String getBookVersionTag(String name);
+
     BookDto createBook (BookCreateDto bookCreateDto);
 
+    BatchResultDto createBooks(List<BookCreateDto> bookCreateDtos);
+
     BookDto updateBook (BookUpdateDto bookUpdateDto);
 
 
     BookDto deleteBook(Long id);
 
+    BatchDeleteResultDto deleteBooks(List<Long> ids, Long genreId, Long authorId);
+
     List<BookDto> getAllBooks();
 
+    PageDto<BookDto> getBooksPage(String cursor, int size);
+
+    PageDto<BookListItemDto> getBookListPage(String cursor, int size);
+
+    List<BookDto> searchBooks(String query, SearchMode mode, int page, int size);
+
+    void streamAllBooks(Consumer<Stream<BookDto>> consumer);
+
+    void streamBookList(Consumer<Stream<BookListItemDto>> consumer);
+
 }
@@ -1,64 +1,99 @@
 package ru.itgirl.libraryproject.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itgirl.libraryproject.dto.*;
+import ru.itgirl.libraryproject.logging.LogMarkers;
 import ru.itgirl.libraryproject.model.Author;
 import ru.itgirl.libraryproject.model.Book;
 import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.repository.BatchDeleteCounts;
 import ru.itgirl.libraryproject.repository.BookRepository;
 import ru.itgirl.libraryproject.repository.GenreRepository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("library.service")
+@Transactional(readOnly = true)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
 
     private final GenreRepository genreRepository;
 
+    private final EntityManager entityManager;
+
+    private final CatalogNameFilter catalogNameFilter;
+
+    private final CatalogDtoCache catalogDtoCache;
+
+    private final BatchWriter batchWriter;
+
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.BOOKS_BY_NAME, key = "{'v1', #name}", sync = true)
     public BookDto getBookByNameV1(String name) {
-        log.info("Try to find book by name {}", name);
+        log.debug(LogMarkers.ENTITY, "Try to find book by name {}", name);
+        if (!catalogNameFilter.mightContainBook(name)) {
+            throw new NotFoundException("Book not found");
+        }
         Optional<Book> book = bookRepository.findBookByName(name);
         if (book.isPresent()) {
-            BookDto bookDto = convertEntityToDto(book.get());
-            log.info("Book: {}", bookDto.toString());
+            BookDto bookDto = CatalogDtoMapper.bookToDto(book.get());
+            log.debug(LogMarkers.ENTITY, "Book: {}", bookDto);
             return bookDto;
         } else {
-            log.error("Book with name: {} not found", name);
-            throw new IllegalStateException("Book not found");
+            log.debug(LogMarkers.ENTITY, "Book with name: {} not found", name);
+            throw new NotFoundException("Book not found");
         }
 
     }
 
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.BOOKS_BY_NAME, key = "{'v2', #name}", sync = true)
     public BookDto getBookByNameV2(String name) {
-        log.info("Try to find book by name {}", name);
+        log.debug(LogMarkers.ENTITY, "Try to find book by name {}", name);
+        if (!catalogNameFilter.mightContainBook(name)) {
+            throw new NotFoundException("Book not found");
+        }
         Optional<Book> book = bookRepository.findBookByNameBySql(name);
         if (book.isPresent()) {
-            BookDto bookDto = convertEntityToDto(book.get());
-            log.info("Book: {}", bookDto.toString());
+            // The native row carries no associations; one query loads the genre and authors for the mapper
+            bookRepository.fetchAuthors(List.of(book.get()));
+            BookDto bookDto = CatalogDtoMapper.bookToDto(book.get());
+            log.debug(LogMarkers.ENTITY, "Book: {}", bookDto);
             return bookDto;
         } else {
-            log.error("Book with name: {} not found", name);
-            throw new IllegalStateException("Book not found");
+            log.debug(LogMarkers.ENTITY, "Book with name: {} not found", name);
+            throw new NotFoundException("Book not found");
         }
     }
 
     @Override
+    @Cacheable(cacheNames = CatalogDtoCache.BOOKS_BY_NAME, key = "{'v3', #name}", sync = true)
     public BookDto getBookByNameV3(String name) {
         Specification<Book> bookSpecification = Specification.where(new Specification<Book>() {
             @Override
@@ -68,63 +103,199 @@ public class BookServiceImpl implements BookService {
                 return criteriaBuilder.equal(root.get("name"), name);
             }
         });
-        log.info("Try to find book by name {}", name);
-        Optional<Book> book = bookRepository.findOne(bookSpecification);
+        log.debug(LogMarkers.ENTITY, "Try to find book by name {}", name);
+        if (!catalogNameFilter.mightContainBook(name)) {
+            throw new NotFoundException("Book not found");
+        }
+        Optional<Book> book = bookRepository.findOneWithAuthors(bookSpecification);
         if (book.isPresent()) {
-            BookDto bookDto = convertEntityToDto(book.get());
-            log.info("Book: {}", bookDto.toString());
+            BookDto bookDto = CatalogDtoMapper.bookToDto(book.get());
+            log.debug(LogMarkers.ENTITY, "Book: {}", bookDto);
             return bookDto;
         } else {
-            log.error("Book with name: {} not found", name);
-            throw new IllegalStateException("Book not found");
+            log.debug(LogMarkers.ENTITY, "Book with name: {} not found", name);
+            throw new NotFoundException("Book not found");
+        }
+    }
+
+    @Override
+    public String getBookVersionTag(String name) {
+        if (!catalogNameFilter.mightContainBook(name)) {
+            return null;
         }
+        return bookRepository.findVersionTagByName(name);
     }
 
     @Override
+    @Transactional
     public BookDto createBook(BookCreateDto bookCreateDto) {
         log.info("Creating book: {}", bookCreateDto);
         Book book = bookRepository.save(convertDtoToEntity(bookCreateDto));
-        BookDto bookDto = convertEntityToDto(book);
+        BookDto bookDto = CatalogDtoMapper.bookToDto(book);
         log.info("Book created: {}", bookDto);
         return bookDto;
     }
 
 
+    // Chunks commit in their own transactions
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResultDto createBooks(List<BookCreateDto> bookCreateDtos) {
+        log.info("Creating {} books in batch", bookCreateDtos.size());
+        Set<Long> genreIds = bookCreateDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookCreateDto::getGenre_id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Genre> genres = genreRepository.findAllById(genreIds).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        BatchResultDto result = batchWriter.persistAll(bookCreateDtos, bookCreateDto -> {
+            Genre genre = genres.get(bookCreateDto.getGenre_id());
+            if (genre == null) {
+                throw new IllegalArgumentException("Genre not found");
+            }
+            return Book.builder()
+                    .name(bookCreateDto.getName())
+                    .genre(genre)
+                    .build();
+        }, Book::getId);
+        log.info("Books batch finished: {} created, {} rejected", result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
     @Override
+    @RetryOnOptimisticLock
+    @Transactional
     public BookDto updateBook(BookUpdateDto bookUpdateDto) {
         Optional<Book> bookOptional = bookRepository.findById(bookUpdateDto.getId());
         if (bookOptional.isPresent()) {
             Book book = bookOptional.get();
+            if (bookUpdateDto.getVersion() != null && !bookUpdateDto.getVersion().equals(book.getVersion())) {
+                log.info("Book {} is at version {}, update of version {} rejected", book.getId(), book.getVersion(),
+                        bookUpdateDto.getVersion());
+                throw new VersionConflictException("Book was changed concurrently", CatalogDtoMapper.bookToDto(book));
+            }
             book.setName(bookUpdateDto.getName());
             Genre genre = genreRepository.findById(bookUpdateDto.getGenre_id()).orElseThrow();
             book.setGenre(genre);
-            Book savedBook = bookRepository.save(book);
-            BookDto bookDto = convertEntityToDto(savedBook);
+            // Flushed here so a lost race surfaces before the response is built and the new version is returned
+            Book savedBook = bookRepository.saveAndFlush(book);
+            BookDto bookDto = CatalogDtoMapper.bookToDto(savedBook);
             log.info("Book updated: {}", bookDto);
 
             return bookDto;
         } else {
             log.error("Failed to update book. Book not found for id: {}", bookUpdateDto.getId());
-            throw new IllegalStateException("Book not update");
+            throw new NotFoundException("Book not update");
         }
     }
 
     @Override
+    @Transactional
     public BookDto deleteBook(Long id) {
         log.info("Deleting book: {}", id);
-        bookRepository.deleteById(id);
-        log.info("Book deleted: {}", id);
+        BatchDeleteCounts counts = BatchDeletes.deleteOne(id, bookRepository::bulkDeleteByIds, "Book not found");
+        catalogDtoCache.booksDeleted(counts.deletedIds(), counts.linkedIds(), counts.genreIds());
+        log.info("Book deleted: {} with {} author links", id, counts.getLinks());
         return null;
     }
 
+    @Override
+    @Transactional
+    public BatchDeleteResultDto deleteBooks(List<Long> ids, Long genreId, Long authorId) {
+        if (Stream.of(ids, genreId, authorId).filter(Objects::nonNull).count() != 1) {
+            throw new IllegalArgumentException("Exactly one of ids, genre or author must be given");
+        }
+        long started = System.nanoTime();
+        BatchDeleteCounts counts = ids != null ? bookRepository.bulkDeleteByIds(ids.toArray(Long[]::new))
+                : genreId != null ? bookRepository.bulkDeleteByGenreId(genreId)
+                : bookRepository.bulkDeleteByAuthorId(authorId);
+        catalogDtoCache.booksDeleted(counts.deletedIds(), counts.linkedIds(), counts.genreIds());
+        log.info("Deleted {} books and {} author links in {} ms", counts.getDeleted(), counts.getLinks(),
+                LogMarkers.elapsedMillis(started));
+        return new BatchDeleteResultDto(counts.getDeleted(), counts.getLinks());
+    }
+
     @Override
     public List<BookDto> getAllBooks() {
-        log.info("Getting a list of all books");
-        List<Book> books = bookRepository.findAll();
-        return books.stream()
-                .map(this::convertEntityToDto)
-                .peek(authorDto -> log.info("Retrieved book: {}", authorDto))
+        long started = System.nanoTime();
+        List<Book> books = bookRepository.findAllWithAuthors();
+        List<BookDto> bookDtos = books.stream()
+                .map(CatalogDtoMapper::bookToDto)
                 .collect(Collectors.toList());
+        log.info("Retrieved {} books in {} ms", bookDtos.size(), LogMarkers.elapsedMillis(started));
+        return bookDtos;
+    }
+
+    @Override
+    public PageDto<BookDto> getBooksPage(String cursor, int size) {
+        Long afterId = PageCursor.decode(cursor);
+        int pageSize = PageCursor.boundSize(size);
+        long started = System.nanoTime();
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageCursor.lookahead(pageSize));
+        PageDto<BookDto> page = PageCursor.toPage(books, pageSize, Book::getId, CatalogDtoMapper::bookToDto);
+        log.info("Retrieved a page of {} books after id {} in {} ms", page.getItems().size(), afterId,
+                LogMarkers.elapsedMillis(started));
+        return page;
+    }
+
+    // Only what the /books page shows: one query, no entities, no authors
+    @Override
+    public PageDto<BookListItemDto> getBookListPage(String cursor, int size) {
+        Long afterId = PageCursor.decode(cursor);
+        int pageSize = PageCursor.boundSize(size);
+        long started = System.nanoTime();
+        List<BookListItemDto> items = bookRepository.findListItemsAfter(afterId, PageCursor.lookahead(pageSize));
+        PageDto<BookListItemDto> page = PageCursor.toPage(items, pageSize, BookListItemDto::getId, Function.identity());
+        log.info("Retrieved a list page of {} books after id {} in {} ms", page.getItems().size(), afterId,
+                LogMarkers.elapsedMillis(started));
+        return page;
+    }
+
+    @Override
+    public List<BookDto> searchBooks(String query, SearchMode mode, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        String trimmed = query.trim();
+        int pageSize = PageCursor.boundSize(size);
+        long offset = (long) page * pageSize;
+        long started = System.nanoTime();
+        List<Book> books = switch (mode) {
+            case PREFIX -> bookRepository.searchByNamePrefix(SearchMode.escapeLike(trimmed), pageSize, offset);
+            case CONTAINS -> bookRepository.searchByNameContaining(SearchMode.escapeLike(trimmed), trimmed, pageSize, offset);
+            case FUZZY -> bookRepository.searchByNameFuzzy(trimmed, pageSize, offset);
+            case FULL_TEXT -> bookRepository.searchByNameFullText(trimmed, pageSize, offset);
+        };
+        List<BookDto> bookDtos = books.stream().map(CatalogDtoMapper::bookToDto).toList();
+        log.info("Found {} books by name '{}' in mode {}, page {} of size {}, in {} ms", bookDtos.size(), trimmed, mode,
+                page, pageSize, LogMarkers.elapsedMillis(started));
+        return bookDtos;
+    }
+
+    @Override
+    public void streamAllBooks(Consumer<Stream<BookDto>> consumer) {
+        long started = System.nanoTime();
+        AtomicInteger rows = new AtomicInteger();
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            consumer.accept(StreamChunks.mapDetached(books, entityManager, bookRepository::fetchAuthors,
+                            CatalogDtoMapper::bookToDto)
+                    .peek(bookDto -> rows.incrementAndGet()));
+        }
+        log.info("Streamed {} books in {} ms", rows.get(), LogMarkers.elapsedMillis(started));
+    }
+
+    @Override
+    public void streamBookList(Consumer<Stream<BookListItemDto>> consumer) {
+        long started = System.nanoTime();
+        AtomicInteger rows = new AtomicInteger();
+        try (Stream<BookListItemDto> items = bookRepository.streamListItems()) {
+            consumer.accept(items.peek(item -> rows.incrementAndGet()));
+        }
+        log.info("Streamed a list of {} books in {} ms", rows.get(), LogMarkers.elapsedMillis(started));
     }
 
     private Book convertDtoToEntity(BookCreateDto bookCreateDto) {
@@ -135,31 +306,4 @@ public class BookServiceImpl implements BookService {
                 .genre(genre)
                 .build();
     }
-
-    private BookDto convertEntityToDto(Book book) {
-        List<AuthorDto> authorDtoList = null;
-        if (book.getAuthors() != null) {
-            authorDtoList = book.getAuthors()
-                    .stream()
-                    .map(author -> AuthorDto.builder()
-                            .name(author.getName())
-                            .surname(author.getSurname())
-                            .id(author.getId())
-                            .build())
-                    .toList();
-        }
-
-        GenreDto genreDto = GenreDto.builder()
-                .id(book.getGenre().getId())
-                .name(book.getGenre().getName())
-                .build();
-
-        BookDto bookDto = BookDto.builder()
-                .id(book.getId())
-                .name(book.getName())
-                .genre(genreDto.getName())
-                .authors(authorDtoList)
-                .build();
-        return bookDto;
-    }
 }
@@ -0,0 +1,51 @@
+package ru.itgirl.libraryproject.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.itgirl.libraryproject.model.Author;
+import ru.itgirl.libraryproject.model.Book;
+
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheListener {
+
+    private final CatalogDtoCache catalogDtoCache;
+
+    private final CatalogNameFilter catalogNameFilter;
+
+    // A new entity cannot appear in any cached DTO yet, so only its own lookup key is dropped
+    // from the cache and added to the name filter
+    @PostPersist
+    public void evictLookupKey(Object entity) {
+        if (entity instanceof Book book) {
+            catalogDtoCache.bookCreated(book.getName());
+            catalogNameFilter.bookAdded(book.getName());
+        } else if (entity instanceof Author author) {
+            catalogDtoCache.authorCreated(author.getSurname());
+            catalogNameFilter.authorAdded(author.getSurname());
+        }
+    }
+
+    // A renamed entity is looked up by its new key from now on; the old one stays in the filter until it is rebuilt
+    @PostUpdate
+    public void evictUpdatedDtos(Object entity) {
+        if (entity instanceof Book book) {
+            catalogNameFilter.bookAdded(book.getName());
+        } else if (entity instanceof Author author) {
+            catalogNameFilter.authorAdded(author.getSurname());
+        }
+        evictCachedDtos(entity);
+    }
+
+    @PostRemove
+    public void evictCachedDtos(Object entity) {
+        if (entity instanceof Book book) {
+            catalogDtoCache.bookChanged(book.getId(), book.getName());
+        } else if (entity instanceof Author author) {
+            catalogDtoCache.authorChanged(author.getId(), author.getSurname());
+        }
+    }
+}
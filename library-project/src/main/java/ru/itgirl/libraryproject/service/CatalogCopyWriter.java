@@ -0,0 +1,112 @@
+package ru.itgirl.libraryproject.service;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+class CatalogCopyWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CatalogNameFilter catalogNameFilter;
+
+    private final Map<String, Integer> sequenceIncrements = new ConcurrentHashMap<>();
+
+    Map<String, Long> copy(ImportChunk chunk, Map<String, Long> knownAuthors) {
+        Map<String, Long> createdAuthors = new HashMap<>();
+        StringBuilder authors = new StringBuilder();
+        Iterator<Long> authorIds = allocateIds("author_id_seq", chunk.getNewAuthors().size()).iterator();
+        chunk.getNewAuthors().forEach((key, author) -> {
+            Long id = authorIds.next();
+            createdAuthors.put(key, id);
+            appendRow(authors, id, author.getName(), author.getSurname());
+            catalogNameFilter.authorAdded(author.getSurname());
+        });
+
+        StringBuilder books = new StringBuilder();
+        StringBuilder links = new StringBuilder();
+        Iterator<Long> bookIds = allocateIds("book_id_seq", chunk.getBooks().size()).iterator();
+        for (ImportChunk.BookRow book : chunk.getBooks()) {
+            Long id = bookIds.next();
+            appendRow(books, id, book.name(), book.genreId());
+            catalogNameFilter.bookAdded(book.name());
+            for (String authorKey : book.authorKeys()) {
+                appendRow(links, id, createdAuthors.getOrDefault(authorKey, knownAuthors.get(authorKey)));
+            }
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyIn(copyManager, "COPY author (id, name, surname) FROM STDIN (FORMAT csv)", authors);
+            copyIn(copyManager, "COPY book (id, name, genre_id) FROM STDIN (FORMAT csv)", books);
+            copyIn(copyManager, "COPY author_book (book_id, author_id) FROM STDIN (FORMAT csv)", links);
+            return null;
+        });
+        return createdAuthors;
+    }
+
+    private List<Long> allocateIds(String sequence, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        Integer increment = sequenceIncrements.get(sequence);
+        if (increment == null) {
+            // Not computeIfAbsent: the query would run under the map's bin lock and pin a virtual thread
+            increment = jdbcTemplate.queryForObject(
+                    "select increment_by from pg_sequences where schemaname = current_schema() and sequencename = ?",
+                    Integer.class, sequence);
+            sequenceIncrements.put(sequence, increment);
+        }
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + increment - 1) / increment;
+            List<Long> highValues = jdbcTemplate.queryForList("select nextval(?::regclass) from generate_series(1, ?)",
+                    Long.class, sequence, blocks);
+            for (Long high : highValues) {
+                // Same id ranges as Hibernate's pooled optimizer: each nextval reserves (value - increment, value]
+                for (long id = Math.max(1, high - increment + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void copyIn(CopyManager copyManager, String sql, StringBuilder rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            copyManager.copyIn(sql, new StringReader(rows.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendRow(StringBuilder rows, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                rows.append(',');
+            }
+            if (values[i] instanceof Number) {
+                rows.append(values[i]);
+            } else {
+                rows.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        rows.append('\n');
+    }
+}
@@ -0,0 +1,151 @@
+package ru.itgirl.libraryproject.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itgirl.libraryproject.config.CatalogCaffeineCache;
+import ru.itgirl.libraryproject.model.Author;
+import ru.itgirl.libraryproject.model.Book;
+import ru.itgirl.libraryproject.model.Genre;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+public class CatalogDtoCache {
+
+    public static final String BOOKS_BY_NAME = "booksByName";
+    public static final String AUTHORS_BY_SURNAME = "authorsBySurname";
+    public static final String AUTHORS_BY_ID = "authorsById";
+
+    // The V1, V2 and V3 lookups each cache their own result under {'v1', key} and so on, so one strategy is never
+    // answered from another's entry; a name or surname is evicted for all of them
+    private static final List<String> LOOKUP_STRATEGIES = List.of("v1", "v2", "v3");
+
+    private final CacheManager cacheManager;
+
+    // Looked up on use: the entity listeners that evict through this cache are created with the factory
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public void bookCreated(String name) {
+        evictLookups(BOOKS_BY_NAME, name);
+    }
+
+    public void authorCreated(String surname) {
+        evictLookups(AUTHORS_BY_SURNAME, surname);
+    }
+
+    public void bookChanged(Long bookId, String name) {
+        evictNowAndAfterCommit(() -> {
+            evictLookups(BOOKS_BY_NAME, name);
+            forEachCatalogCache(cache -> cache.evictByBookId(bookId));
+        });
+    }
+
+    public void authorChanged(Long authorId, String surname) {
+        evictNowAndAfterCommit(() -> {
+            evictLookups(AUTHORS_BY_SURNAME, surname);
+            evict(AUTHORS_BY_ID, authorId);
+            forEachCatalogCache(cache -> cache.evictByAuthorId(authorId));
+        });
+    }
+
+    // After a set-based delete that bypassed Hibernate: the deleted rows, the collections that listed them and the DTOs
+    // showing them go, while every other entry stays. Query results go as after Hibernate's own deletes, since any of
+    // them may name a deleted row. Evicting again after completion drops what a concurrent reader cached from the rows
+    // before the commit.
+    public void booksDeleted(Collection<Long> bookIds, Collection<Long> authorIds, Collection<Long> genreIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        evictNowAndAfterCommit(() -> {
+            org.hibernate.Cache regions = hibernateCache();
+            bookIds.forEach(id -> {
+                regions.evictEntityData(Book.class, id);
+                regions.evictCollectionData(Book.class.getName() + ".authors", id);
+            });
+            authorIds.forEach(id -> regions.evictCollectionData(Author.class.getName() + ".books", id));
+            genreIds.forEach(id -> regions.evictCollectionData(Genre.class.getName() + ".books", id));
+            regions.evictQueryRegions();
+            bookIds.forEach(id -> forEachCatalogCache(cache -> cache.evictByBookId(id)));
+        });
+    }
+
+    public void authorsDeleted(Collection<Long> authorIds, Collection<Long> bookIds) {
+        if (authorIds.isEmpty()) {
+            return;
+        }
+        evictNowAndAfterCommit(() -> {
+            org.hibernate.Cache regions = hibernateCache();
+            authorIds.forEach(id -> {
+                regions.evictEntityData(Author.class, id);
+                regions.evictCollectionData(Author.class.getName() + ".books", id);
+            });
+            bookIds.forEach(id -> regions.evictCollectionData(Book.class.getName() + ".authors", id));
+            regions.evictQueryRegions();
+            authorIds.forEach(id -> {
+                evict(AUTHORS_BY_ID, id);
+                forEachCatalogCache(cache -> cache.evictByAuthorId(id));
+            });
+        });
+    }
+
+    // After a set-based write that bypassed Hibernate and cannot name the rows it touched, such as an import: its entity,
+    // collection and query regions go with the DTOs, now and again after completion.
+    public void evictAll() {
+        evictNowAndAfterCommit(() -> {
+            hibernateCache().evictAllRegions();
+            List.of(BOOKS_BY_NAME, AUTHORS_BY_SURNAME, AUTHORS_BY_ID).forEach(name -> {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
+            });
+        });
+    }
+
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private org.hibernate.Cache hibernateCache() {
+        return entityManagerFactory.getObject().unwrap(SessionFactory.class).getCache();
+    }
+
+    private void evictLookups(String cacheName, String key) {
+        LOOKUP_STRATEGIES.forEach(strategy -> evict(cacheName, Arrays.asList(strategy, key)));
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    // The DTOs under an old name or surname, and those of linked books and authors, are found through the key index
+    private void forEachCatalogCache(Consumer<CatalogCaffeineCache> eviction) {
+        for (String name : List.of(BOOKS_BY_NAME, AUTHORS_BY_SURNAME, AUTHORS_BY_ID)) {
+            if (cacheManager.getCache(name) instanceof CatalogCaffeineCache cache) {
+                eviction.accept(cache);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.itgirl.libraryproject.service;
+
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.model.Author;
+import ru.itgirl.libraryproject.model.Book;
+
+import java.util.List;
+
+// Entity-to-DTO conversion shared by the services. The associations must already be loaded: the mapper never starts
+// a query of its own.
+public final class CatalogDtoMapper {
+
+    private CatalogDtoMapper() {
+    }
+
+    public static BookDto bookToDto(Book book) {
+        List<AuthorDto> authorDtoList = null;
+        if (book.getAuthors() != null) {
+            authorDtoList = book.getAuthors()
+                    .stream()
+                    .map(author -> AuthorDto.builder()
+                            .name(author.getName())
+                            .surname(author.getSurname())
+                            .id(author.getId())
+                            .build())
+                    .toList();
+        }
+        return BookDto.builder()
+                .id(book.getId())
+                .name(book.getName())
+                .genre(book.getGenre().getName())
+                .authors(authorDtoList)
+                .version(book.getVersion())
+                .build();
+    }
+
+    public static AuthorDto authorToDto(Author author) {
+        List<BookDto> bookDtoList = null;
+        if (author.getBooks() != null) {
+            bookDtoList = author.getBooks().stream()
+                    .map(book -> BookDto.builder()
+                            .genre(book.getGenre().getName())
+                            .name(book.getName())
+                            .id(book.getId())
+                            .build())
+                    .toList();
+        }
+        return AuthorDto.builder()
+                .id(author.getId())
+                .name(author.getName())
+                .surname(author.getSurname())
+                .books(bookDtoList)
+                .version(author.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.itgirl.libraryproject.service;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+
+import java.util.stream.Collectors;
+
+final class CatalogExportCsvRows {
+
+    private CatalogExportCsvRows() {
+    }
+
+    @JsonPropertyOrder({"id", "name", "genre", "authors"})
+    record BookRow(Long id, String name, String genre, String authors) {
+
+        static BookRow of(BookDto book) {
+            return new BookRow(book.getId(), book.getName(), book.getGenre(), book.getAuthors().stream()
+                    .map(author -> author.getName() + " " + author.getSurname())
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    @JsonPropertyOrder({"id", "name", "surname", "books"})
+    record AuthorRow(Long id, String name, String surname, String books) {
+
+        static AuthorRow of(AuthorDto author) {
+            return new AuthorRow(author.getId(), author.getName(), author.getSurname(), author.getBooks().stream()
+                    .map(BookDto::getName)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.itgirl.libraryproject.service;
+
+import java.io.OutputStream;
+
+public interface CatalogExportService {
+
+    long exportBooks(CatalogFormat format, OutputStream output);
+
+    long exportAuthors(CatalogFormat format, OutputStream output);
+}
@@ -0,0 +1,209 @@
+package ru.itgirl.libraryproject.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+@Service
+@Slf4j
+public class CatalogExportServiceImpl implements CatalogExportService {
+
+    private static final String BOOKS_QUERY = "select b.id, b.name, g.name as genre, "
+            + "a.id as author_id, a.name as author_name, a.surname as author_surname "
+            + "from book b join genre g on g.id = b.genre_id "
+            + "left join author_book ab on ab.book_id = b.id "
+            + "left join author a on a.id = ab.author_id "
+            + "order by b.id, a.id";
+
+    private static final String AUTHORS_QUERY = "select a.id, a.name, a.surname, "
+            + "b.id as book_id, b.name as book_name, g.name as book_genre "
+            + "from author a "
+            + "left join author_book ab on ab.author_id = a.id "
+            + "left join book b on b.id = ab.book_id "
+            + "left join genre g on g.id = b.genre_id "
+            + "order by a.id, b.id";
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper ndjsonMapper;
+
+    public CatalogExportServiceImpl(DataSource dataSource,
+                                    ObjectMapper objectMapper,
+                                    @Value("${library.export.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.ndjsonMapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(CatalogFormat format, OutputStream output) {
+        log.info("Exporting books as {}", format);
+        try (RecordWriter<BookDto> writer = format == CatalogFormat.CSV
+                ? csvWriter(output, CatalogExportCsvRows.BookRow.class, CatalogExportCsvRows.BookRow::of)
+                : ndjsonWriter(output)) {
+            GroupedRows<BookDto, AuthorDto> rows = new GroupedRows<>(
+                    (rs, rowNum) -> new BookDto(rs.getLong("id"), rs.getString("name"), rs.getString("genre"), new ArrayList<>()),
+                    (rs, rowNum) -> rs.getObject("author_id") == null ? null : AuthorDto.builder()
+                            .id(rs.getLong("author_id"))
+                            .name(rs.getString("author_name"))
+                            .surname(rs.getString("author_surname"))
+                            .build(),
+                    (book, author) -> book.getAuthors().add(author),
+                    writer);
+            jdbcTemplate.query(BOOKS_QUERY, rows);
+            rows.finish();
+            log.info("Exported {} books", rows.count);
+            return rows.count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAuthors(CatalogFormat format, OutputStream output) {
+        log.info("Exporting authors as {}", format);
+        try (RecordWriter<AuthorDto> writer = format == CatalogFormat.CSV
+                ? csvWriter(output, CatalogExportCsvRows.AuthorRow.class, CatalogExportCsvRows.AuthorRow::of)
+                : ndjsonWriter(output)) {
+            GroupedRows<AuthorDto, BookDto> rows = new GroupedRows<>(
+                    (rs, rowNum) -> new AuthorDto(rs.getLong("id"), rs.getString("name"), rs.getString("surname"), new ArrayList<>()),
+                    (rs, rowNum) -> rs.getObject("book_id") == null ? null : BookDto.builder()
+                            .id(rs.getLong("book_id"))
+                            .name(rs.getString("book_name"))
+                            .genre(rs.getString("book_genre"))
+                            .build(),
+                    (author, book) -> author.getBooks().add(book),
+                    writer);
+            jdbcTemplate.query(AUTHORS_QUERY, rows);
+            rows.finish();
+            log.info("Exported {} authors", rows.count);
+            return rows.count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> RecordWriter<T> ndjsonWriter(OutputStream output) throws IOException {
+        JsonGenerator generator = ndjsonMapper.createGenerator(output, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+        return new RecordWriter<>() {
+            @Override
+            public void write(T value) throws IOException {
+                ndjsonMapper.writeValue(generator, value);
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                generator.close();
+            }
+        };
+    }
+
+    private static <T, R> RecordWriter<T> csvWriter(OutputStream output, Class<R> rowType, Function<T, R> toRow)
+            throws IOException {
+        SequenceWriter sequenceWriter = CSV_MAPPER.writer(CSV_MAPPER.schemaFor(rowType).withHeader()).writeValues(output);
+        return new RecordWriter<>() {
+            @Override
+            public void write(T value) throws IOException {
+                sequenceWriter.write(toRow.apply(value));
+            }
+
+            @Override
+            public void close() throws IOException {
+                sequenceWriter.close();
+            }
+        };
+    }
+
+    private interface RecordWriter<T> extends Closeable {
+
+        void write(T value) throws IOException;
+    }
+
+    // Rows arrive ordered by parent id, so each parent is written as soon as its last child row is read
+    private static class GroupedRows<T, C> implements RowCallbackHandler {
+
+        private final RowMapper<T> parentMapper;
+
+        private final RowMapper<C> childMapper;
+
+        private final BiConsumer<T, C> attach;
+
+        private final RecordWriter<T> writer;
+
+        private T current;
+
+        private long currentId;
+
+        private long count;
+
+        GroupedRows(RowMapper<T> parentMapper, RowMapper<C> childMapper, BiConsumer<T, C> attach, RecordWriter<T> writer) {
+            this.parentMapper = parentMapper;
+            this.childMapper = childMapper;
+            this.attach = attach;
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || id != currentId) {
+                finish();
+                current = parentMapper.mapRow(rs, rs.getRow());
+                currentId = id;
+            }
+            C child = childMapper.mapRow(rs, rs.getRow());
+            if (child != null) {
+                attach.accept(current, child);
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                writer.write(current);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count++;
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.itgirl.libraryproject.service;
+
+import org.springframework.http.MediaType;
+
+public enum CatalogFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    CatalogFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static CatalogFormat of(MediaType mediaType) {
+        if (mediaType != null && "csv".equalsIgnoreCase(mediaType.getSubtype())) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+
+    public static CatalogFormat of(String fileName) {
+        return fileName.toLowerCase().endsWith(".csv") ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.itgirl.libraryproject.service;
+
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.CatalogImportRecordDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+record CatalogImportCsvRow(String name, String genre, String authors) {
+
+    CatalogImportRecordDto toRecord() {
+        List<AuthorCreateDto> authorDtos = authors == null || authors.isBlank() ? List.of() : Arrays.stream(authors.split(";"))
+                .map(author -> author.trim().split("\\s+", 2))
+                .map(parts -> new AuthorCreateDto(parts[0], parts.length > 1 ? parts[1] : null))
+                .toList();
+        return new CatalogImportRecordDto(name, genre, authorDtos);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.itgirl.libraryproject.service;
+
+import ru.itgirl.libraryproject.dto.ImportJobDto;
+
+import java.io.InputStream;
+
+public interface CatalogImportService {
+
+    ImportJobDto importCatalog(InputStream input, CatalogFormat format);
+
+    ImportJobDto importFile(String fileName);
+
+    ImportJobDto resumeImport(Long id, InputStream input);
+
+    ImportJobDto getImportJob(Long id);
+}
@@ -0,0 +1,341 @@
+package ru.itgirl.libraryproject.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.config.Bulkheads;
+import ru.itgirl.libraryproject.dto.CatalogImportRecordDto;
+import ru.itgirl.libraryproject.dto.ImportJobDto;
+import ru.itgirl.libraryproject.model.ImportJob;
+import ru.itgirl.libraryproject.model.ImportStatus;
+import ru.itgirl.libraryproject.repository.ImportJobRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.StreamSupport;
+
+@Service
+@Slf4j
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private static final String UPLOAD_SOURCE = "upload";
+
+    private static final String FILE_SOURCE_PREFIX = "file:";
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ImportJobRepository importJobRepository;
+
+    private final CatalogCopyWriter catalogCopyWriter;
+
+    private final CatalogDtoCache catalogDtoCache;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Bulkheads bulkheads;
+
+    private final int chunkSize;
+
+    private final String importDirectory;
+
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public CatalogImportServiceImpl(ImportJobRepository importJobRepository,
+                                    CatalogCopyWriter catalogCopyWriter,
+                                    CatalogDtoCache catalogDtoCache,
+                                    JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    Bulkheads bulkheads,
+                                    @Value("${library.import.chunk-size:5000}") int chunkSize,
+                                    @Value("${library.import.directory:}") String importDirectory) {
+        this.importJobRepository = importJobRepository;
+        this.catalogCopyWriter = catalogCopyWriter;
+        this.catalogDtoCache = catalogDtoCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkheads = bulkheads;
+        this.chunkSize = chunkSize;
+        this.importDirectory = importDirectory;
+    }
+
+    @Override
+    public ImportJobDto importCatalog(InputStream input, CatalogFormat format) {
+        Path upload = spool(input);
+        return submit(startJob(UPLOAD_SOURCE, format), upload, true);
+    }
+
+    @Override
+    public ImportJobDto importFile(String fileName) {
+        Path file = resolveImportFile(fileName);
+        return submit(startJob(FILE_SOURCE_PREFIX + fileName, CatalogFormat.of(fileName)), file, false);
+    }
+
+    @Override
+    public ImportJobDto resumeImport(Long id, InputStream input) {
+        ImportJob job = findJob(id);
+        if (job.getStatus() == ImportStatus.COMPLETED) {
+            throw new ImportJobStateException("Import job is already completed");
+        }
+        log.info("Resume import job {} after {} records", id, job.getRecordsRead());
+        if (job.getSource().startsWith(FILE_SOURCE_PREFIX)) {
+            Path file = resolveImportFile(job.getSource().substring(FILE_SOURCE_PREFIX.length()));
+            return submit(job, file, false);
+        }
+        return submit(job, spool(input), true);
+    }
+
+    @Override
+    public ImportJobDto getImportJob(Long id) {
+        return convertEntityToDto(findJob(id));
+    }
+
+    private ImportJob startJob(String source, CatalogFormat format) {
+        LocalDateTime now = LocalDateTime.now();
+        ImportJob job = importJobRepository.save(ImportJob.builder()
+                .source(source)
+                .format(format)
+                .status(ImportStatus.QUEUED)
+                .startedAt(now)
+                .updatedAt(now)
+                .build());
+        log.info("Start import job {} from {} ({})", job.getId(), source, format);
+        return job;
+    }
+
+    // The job runs on the imports bulkhead, so the request returns as soon as it is queued and neither a servlet
+    // thread nor a connection is held for the length of the import; progress is read from the job
+    private ImportJobDto submit(ImportJob job, Path file, boolean spooled) {
+        if (!runningJobs.add(job.getId())) {
+            deleteSpooled(file, spooled);
+            throw new ImportJobStateException("Import job is already running");
+        }
+        job.setStatus(ImportStatus.QUEUED);
+        job.setError(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        ImportJob queued = importJobRepository.save(job);
+        try {
+            bulkheads.getImports().submit(() -> {
+                try {
+                    return run(queued, new FileSystemResource(file));
+                } finally {
+                    deleteSpooled(file, spooled);
+                }
+            }).whenComplete((result, e) -> {
+                if (e instanceof TimeoutException) {
+                    deleteSpooled(file, spooled);
+                    abandon(queued.getId(), "Import job was not started in time");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deleteSpooled(file, spooled);
+            abandon(queued.getId(), "Import queue is full");
+            throw e;
+        }
+        return convertEntityToDto(queued);
+    }
+
+    private void abandon(Long id, String error) {
+        runningJobs.remove(id);
+        ImportJob job = findJob(id);
+        job.setStatus(ImportStatus.FAILED);
+        job.setError(error);
+        job.setUpdatedAt(LocalDateTime.now());
+        importJobRepository.save(job);
+        log.error("Import job {} failed: {}", id, error);
+    }
+
+    private ImportJobDto run(ImportJob job, InputStreamSource source) {
+        long recordsToSkip = job.getRecordsRead();
+        long runStarted = System.nanoTime();
+        long elapsedBefore = job.getElapsedMs();
+        boolean catalogChanged = false;
+        try (InputStream input = source.getInputStream()) {
+            job.setStatus(ImportStatus.RUNNING);
+            importJobRepository.save(job);
+            Map<String, Long> genres = loadGenres();
+            Map<String, Long> authors = loadAuthors();
+            Iterator<CatalogImportRecordDto> records = openRecords(job.getFormat(), input);
+            ImportChunk chunk = new ImportChunk();
+            long index = 0;
+            while (records.hasNext()) {
+                CatalogImportRecordDto record = records.next();
+                if (index++ < recordsToSkip) {
+                    continue;
+                }
+                String error = chunk.add(record, genres, authors);
+                if (error != null) {
+                    log.debug("Import job {} rejected record {}: {}", job.getId(), index, error);
+                }
+                if (chunk.getRecords() == chunkSize) {
+                    catalogChanged |= writeChunk(job, chunk, authors, elapsedBefore, runStarted);
+                    chunk = new ImportChunk();
+                }
+            }
+            catalogChanged |= writeChunk(job, chunk, authors, elapsedBefore, runStarted);
+            job.setStatus(ImportStatus.COMPLETED);
+            log.info("Import job {} completed: {} records, {} books, {} authors, {} rejected", job.getId(),
+                    job.getRecordsRead(), job.getBooksCreated(), job.getAuthorsCreated(), job.getRejected());
+        } catch (IOException | RuntimeException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.error("Import job {} failed: {}", job.getId(), message);
+            job = findJob(job.getId());
+            job.setStatus(ImportStatus.FAILED);
+            job.setError(message);
+        } finally {
+            runningJobs.remove(job.getId());
+            // COPY bypasses Hibernate, so the second-level regions go together with the DTO caches
+            if (catalogChanged) {
+                catalogDtoCache.evictAll();
+            }
+        }
+        job.setUpdatedAt(LocalDateTime.now());
+        return convertEntityToDto(importJobRepository.save(job));
+    }
+
+    private boolean writeChunk(ImportJob job, ImportChunk chunk, Map<String, Long> authors,
+                               long elapsedBefore, long runStarted) {
+        if (chunk.getRecords() == 0) {
+            return false;
+        }
+        Map<String, Long> createdAuthors = transactionTemplate.execute(status -> {
+            Map<String, Long> created = catalogCopyWriter.copy(chunk, authors);
+            job.setRecordsRead(job.getRecordsRead() + chunk.getRecords());
+            job.setBooksCreated(job.getBooksCreated() + chunk.getBooks().size());
+            job.setAuthorsCreated(job.getAuthorsCreated() + created.size());
+            job.setLinksCreated(job.getLinksCreated() + chunk.getLinks());
+            job.setRejected(job.getRejected() + chunk.getRejected());
+            job.setElapsedMs(elapsedBefore + (System.nanoTime() - runStarted) / 1_000_000);
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+            return created;
+        });
+        authors.putAll(createdAuthors);
+        log.info("Import job {}: {} records committed, {} records/s", job.getId(), job.getRecordsRead(),
+                recordsPerSecond(job));
+        return !chunk.getBooks().isEmpty();
+    }
+
+    private Iterator<CatalogImportRecordDto> openRecords(CatalogFormat format, InputStream input) throws IOException {
+        if (format == CatalogFormat.CSV) {
+            Iterator<CatalogImportCsvRow> rows = CSV_MAPPER.readerFor(CatalogImportCsvRow.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(input);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+                    .map(CatalogImportCsvRow::toRecord)
+                    .iterator();
+        }
+        return objectMapper.readerFor(CatalogImportRecordDto.class).readValues(input);
+    }
+
+    private Map<String, Long> loadGenres() {
+        Map<String, Long> genres = new HashMap<>();
+        jdbcTemplate.query("select id, name from genre", rs -> {
+            genres.putIfAbsent(rs.getString("name"), rs.getLong("id"));
+        });
+        return genres;
+    }
+
+    private Map<String, Long> loadAuthors() {
+        Map<String, Long> authors = new HashMap<>();
+        jdbcTemplate.query("select id, name, surname from author", rs -> {
+            authors.putIfAbsent(ImportChunk.authorKey(rs.getString("name"), rs.getString("surname")), rs.getLong("id"));
+        });
+        return authors;
+    }
+
+    // An upload is copied to a temporary file on the request thread, so the job can still read it after the response
+    private static Path spool(InputStream input) {
+        Path upload = null;
+        try (input) {
+            upload = Files.createTempFile("catalog-import-", ".upload");
+            Files.copy(input, upload, StandardCopyOption.REPLACE_EXISTING);
+            return upload;
+        } catch (IOException e) {
+            deleteSpooled(upload, true);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteSpooled(Path file, boolean spooled) {
+        if (!spooled || file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path resolveImportFile(String fileName) {
+        // Without a directory the file endpoint does not exist, as far as clients are concerned
+        if (importDirectory.isBlank()) {
+            throw new NotFoundException("File imports are disabled");
+        }
+        Path directory = Path.of(importDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Import file not found: " + fileName);
+        }
+        return file;
+    }
+
+    private ImportJob findJob(Long id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Import job not found"));
+    }
+
+    private static long recordsPerSecond(ImportJob job) {
+        return job.getElapsedMs() == 0 ? 0 : job.getRecordsRead() * 1000 / job.getElapsedMs();
+    }
+
+    private ImportJobDto convertEntityToDto(ImportJob job) {
+        return ImportJobDto.builder()
+                .id(job.getId())
+                .source(job.getSource())
+                .format(job.getFormat().name())
+                .status(job.getStatus().name())
+                .recordsRead(job.getRecordsRead())
+                .booksCreated(job.getBooksCreated())
+                .authorsCreated(job.getAuthorsCreated())
+                .linksCreated(job.getLinksCreated())
+                .rejected(job.getRejected())
+                .recordsPerSecond(recordsPerSecond(job))
+                .error(job.getError())
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.itgirl.libraryproject.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Answers definite misses of /book?name= and /author?surname= without a query. Names are added by the
+// entity listener and the COPY import before their transaction commits; renamed and deleted rows stay
+// in the filter as false positives until the next rebuild from the database. Rows written by another instance
+// or by hand are unknown until then and would be answered as misses, so the filter is off unless enabled.
+@Component
+@Slf4j
+public class CatalogNameFilter implements InitializingBean, DisposableBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final Duration rebuildInterval;
+
+    private final Names bookNames;
+
+    private final Names authorSurnames;
+
+    private final ScheduledExecutorService rebuilds = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-name-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogNameFilter(JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${library.lookup-filter.enabled:false}") boolean enabled,
+                             @Value("${library.lookup-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${library.lookup-filter.min-capacity:10000}") long minCapacity,
+                             @Value("${library.lookup-filter.rebuild-interval:10m}") Duration rebuildInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.rebuildInterval = rebuildInterval;
+        this.bookNames = new Names("books", "select name from book", falsePositiveRate, minCapacity, meterRegistry);
+        this.authorSurnames = new Names("authors", "select surname from author", falsePositiveRate, minCapacity, meterRegistry);
+    }
+
+    public boolean mightContainBook(String name) {
+        return !enabled || bookNames.mightContain(name);
+    }
+
+    public boolean mightContainAuthor(String surname) {
+        return !enabled || authorSurnames.mightContain(surname);
+    }
+
+    public void bookAdded(String name) {
+        if (enabled) {
+            bookNames.add(name);
+        }
+    }
+
+    public void authorAdded(String surname) {
+        if (enabled) {
+            authorSurnames.add(surname);
+        }
+    }
+
+    // Also picks up rows written behind the application's back, e.g. by another instance or by hand
+    public void rebuild() {
+        if (enabled) {
+            bookNames.rebuild(jdbcTemplate);
+            authorSurnames.rebuild(jdbcTemplate);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+        if (enabled && !rebuildInterval.isZero()) {
+            rebuilds.scheduleWithFixedDelay(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to rebuild the catalog name filter: {}", e.getMessage());
+                }
+            }, rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuilds.shutdownNow();
+    }
+
+    private static class Names {
+
+        private final String name;
+
+        private final String query;
+
+        private final double falsePositiveRate;
+
+        private final long minCapacity;
+
+        // Held shared by adds and exclusively while the rebuilt filter is swapped in
+        private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+        private volatile BloomFilter filter;
+
+        // Values added since the previous rebuild started; their transactions may commit after the
+        // rebuild query has taken its snapshot, so they are replayed into the rebuilt filter
+        private Queue<String> recentlyAdded = new ConcurrentLinkedQueue<>();
+
+        Names(String name, String query, double falsePositiveRate, long minCapacity, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.query = query;
+            this.falsePositiveRate = falsePositiveRate;
+            this.minCapacity = minCapacity;
+            this.filter = new BloomFilter(minCapacity, falsePositiveRate);
+            // The rate the filter's size and fill predict, not a count of lookups
+            Gauge.builder("library.lookup.filter.expected.false.positive.rate", this,
+                            names -> names.filter.expectedFalsePositiveRate())
+                    .description("Expected share of misses that still reach the database")
+                    .tag("filter", name)
+                    .register(meterRegistry);
+        }
+
+        boolean mightContain(String value) {
+            return value != null && filter.mightContain(value);
+        }
+
+        void add(String value) {
+            if (value == null) {
+                return;
+            }
+            swapLock.readLock().lock();
+            try {
+                filter.add(value);
+                recentlyAdded.add(value);
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+
+        synchronized void rebuild(JdbcTemplate jdbcTemplate) {
+            long started = System.nanoTime();
+            Queue<String> previouslyAdded = recentlyAdded;
+            swapLock.writeLock().lock();
+            try {
+                recentlyAdded = new ConcurrentLinkedQueue<>();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            Long rows = jdbcTemplate.queryForObject("select count(*) from (" + query + ") v", Long.class);
+            BloomFilter rebuilt = new BloomFilter(Math.max(rows == null ? 0 : rows * 2, minCapacity), falsePositiveRate);
+            jdbcTemplate.query(query, rs -> {
+                rebuilt.add(rs.getString(1));
+            });
+            swapLock.writeLock().lock();
+            try {
+                for (Queue<String> added : List.of(previouslyAdded, recentlyAdded)) {
+                    added.forEach(rebuilt::add);
+                }
+                filter = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            log.info("Rebuilt the {} name filter from {} rows in {} ms: {} bits, expected false positive rate {}",
+                    name, rows, (System.nanoTime() - started) / 1_000_000, rebuilt.bitSize(),
+                    String.format("%.4f", rebuilt.expectedFalsePositiveRate()));
+        }
+    }
+}
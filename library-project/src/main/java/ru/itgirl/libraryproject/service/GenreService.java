@@ -5,4 +5,6 @@ import ru.itgirl.libraryproject.dto.GenreDto;
 public interface GenreService {
 
     GenreDto getGenreById(Long id);
+
+    String getGenreVersionTag(Long id);
 }
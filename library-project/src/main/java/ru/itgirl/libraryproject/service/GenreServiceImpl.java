@@ -1,69 +1,78 @@
 package ru.itgirl.libraryproject.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itgirl.libraryproject.dto.AuthorDto;
 import ru.itgirl.libraryproject.dto.BookDto;
 import ru.itgirl.libraryproject.dto.GenreDto;
-import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.logging.LogMarkers;
+import ru.itgirl.libraryproject.repository.GenreCatalogRow;
 import ru.itgirl.libraryproject.repository.GenreRepository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-
+@Timed("library.service")
+@Transactional(readOnly = true)
 public class GenreServiceImpl implements GenreService {
 
     private final GenreRepository genreRepository;
 
     @Override
     public GenreDto getGenreById(Long id) {
-        log.info("Try to find genre by id {}", id);
-        Optional<Genre> genre = genreRepository.findById(id);
-        if (genre.isPresent()) {
-            GenreDto genreDto = convertEntityToDto(genre.get());
-            log.info("Genre: {}", genreDto.toString());
+        log.debug(LogMarkers.ENTITY, "Try to find genre by id {}", id);
+        List<GenreCatalogRow> rows = genreRepository.findCatalogRowsById(id);
+        if (!rows.isEmpty()) {
+            GenreDto genreDto = convertRowsToDto(rows);
+            log.debug(LogMarkers.ENTITY, "Genre: {}", genreDto);
             return genreDto;
         } else {
-            log.error("Genre with id: {} not found", id);
-            throw new IllegalStateException("Genre not found");
+            log.debug(LogMarkers.ENTITY, "Genre with id: {} not found", id);
+            throw new NotFoundException("Genre not found");
         }
     }
 
-    private GenreDto convertEntityToDto(Genre genre) {
-        List<BookDto> bookDtoList = genre.getBooks().stream()
-                .map(book -> {
-                    List<AuthorDto> authorDtoList = book.getAuthors().stream()
-                            .map(author -> AuthorDto.builder()
-                                    .name(author.getName())
-                                    .surname(author.getSurname())
-                                    .id(author.getId())
-                                    .build())
-                            .toList();
+    @Override
+    public String getGenreVersionTag(Long id) {
+        return genreRepository.findVersionTagById(id);
+    }
 
-                    return BookDto.builder()
-                            .name(book.getName())
-                            .id(book.getId())
-                            .authors(authorDtoList)
-                            .build();
-                })
-                .toList();
+    private GenreDto convertRowsToDto(List<GenreCatalogRow> rows) {
+        Map<Long, BookDto> bookDtoMap = new LinkedHashMap<>();
+        for (GenreCatalogRow row : rows) {
+            if (row.bookId() == null) {
+                continue;
+            }
+            BookDto bookDto = bookDtoMap.computeIfAbsent(row.bookId(), bookId -> BookDto.builder()
+                    .name(row.bookName())
+                    .id(bookId)
+                    .authors(new ArrayList<>())
+                    .build());
+            if (row.authorId() != null) {
+                bookDto.getAuthors().add(AuthorDto.builder()
+                        .name(row.authorName())
+                        .surname(row.authorSurname())
+                        .id(row.authorId())
+                        .build());
+            }
+        }
 
+        GenreCatalogRow genre = rows.get(0);
         GenreDto genreDto = GenreDto.builder()
-                .id(genre.getId())
-                .name(genre.getName())
-                .books(bookDtoList)
+                .id(genre.genreId())
+                .name(genre.genreName())
+                .books(new ArrayList<>(bookDtoMap.values()))
                 .build();
 
         return genreDto;
     }
 
 }
-
-
-
-
@@ -0,0 +1,71 @@
+package ru.itgirl.libraryproject.service;
+
+import lombok.Getter;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.CatalogImportRecordDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Getter
+class ImportChunk {
+
+    private final List<BookRow> books = new ArrayList<>();
+
+    private final Map<String, AuthorCreateDto> newAuthors = new LinkedHashMap<>();
+
+    private int records;
+
+    private int rejected;
+
+    private long links;
+
+    String add(CatalogImportRecordDto record, Map<String, Long> genres, Map<String, Long> knownAuthors) {
+        records++;
+        String error = resolve(record, genres, knownAuthors);
+        if (error != null) {
+            rejected++;
+        }
+        return error;
+    }
+
+    private String resolve(CatalogImportRecordDto record, Map<String, Long> genres, Map<String, Long> knownAuthors) {
+        if (record == null || isBlank(record.getName())) {
+            return "Book name is required";
+        }
+        Long genreId = record.getGenre() == null ? null : genres.get(record.getGenre().trim());
+        if (genreId == null) {
+            return "Genre not found: " + record.getGenre();
+        }
+        Set<String> authorKeys = new LinkedHashSet<>();
+        Map<String, AuthorCreateDto> discovered = new LinkedHashMap<>();
+        for (AuthorCreateDto author : record.getAuthors() == null ? List.<AuthorCreateDto>of() : record.getAuthors()) {
+            if (author == null || isBlank(author.getName()) || isBlank(author.getSurname())) {
+                return "Author name and surname are required";
+            }
+            String key = authorKey(author.getName().trim(), author.getSurname().trim());
+            if (authorKeys.add(key) && !knownAuthors.containsKey(key) && !newAuthors.containsKey(key)) {
+                discovered.put(key, new AuthorCreateDto(author.getName().trim(), author.getSurname().trim()));
+            }
+        }
+        newAuthors.putAll(discovered);
+        books.add(new BookRow(record.getName().trim(), genreId, authorKeys));
+        links += authorKeys.size();
+        return null;
+    }
+
+    static String authorKey(String name, String surname) {
+        return name + '\u0000' + surname;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    record BookRow(String name, Long genreId, Set<String> authorKeys) {
+    }
+}
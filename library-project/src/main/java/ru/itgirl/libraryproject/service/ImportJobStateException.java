@@ -0,0 +1,9 @@
+package ru.itgirl.libraryproject.service;
+
+// The import job exists but is in a state that does not allow the request, e.g. it is running or already completed
+public class ImportJobStateException extends RuntimeException {
+
+    public ImportJobStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.itgirl.libraryproject.service;
+
+// A lookup miss is an expected outcome, so no stack trace is captured
+public class NotFoundException extends IllegalStateException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.itgirl.libraryproject.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.itgirl.libraryproject.dto.PageDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public final class PageCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String PREFIX = "id:";
+
+    private PageCursor() {
+    }
+
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(PREFIX)) {
+                return Long.parseLong(value.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed base64 or id, reported below
+        }
+        throw new IllegalArgumentException("Invalid page cursor");
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int boundSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    public static Pageable lookahead(int size) {
+        // One extra row tells whether another page exists without a count query
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static <E, D> PageDto<D> toPage(List<E> rows, int size, Function<E, Long> idOf, Function<E, D> converter) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        List<D> items = pageRows.stream()
+                .map(converter)
+                .toList();
+        String nextCursor = hasNext ? encode(idOf.apply(pageRows.get(size - 1))) : null;
+        return PageDto.<D>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
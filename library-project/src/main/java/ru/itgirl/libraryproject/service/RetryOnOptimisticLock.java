@@ -0,0 +1,13 @@
+package ru.itgirl.libraryproject.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Re-runs the whole transactional method when a concurrent writer bumped the @Version of an entity it changed.
+// Only for methods that read the entity again on every call and can safely run more than once.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+}
@@ -0,0 +1,14 @@
+package ru.itgirl.libraryproject.service;
+
+public enum SearchMode {
+    PREFIX,
+    CONTAINS,
+    FUZZY,
+    FULL_TEXT;
+
+    static String escapeLike(String query) {
+        return query.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
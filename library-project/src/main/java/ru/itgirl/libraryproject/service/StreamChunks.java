@@ -0,0 +1,58 @@
+package ru.itgirl.libraryproject.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+final class StreamChunks {
+
+    private static final int ENTITY_CHUNK_SIZE = 500;
+
+    private StreamChunks() {
+    }
+
+    // Maps a stream of managed entities chunk by chunk: one query initializes the associations of a whole chunk,
+    // and the chunk is detached once mapped, so the persistence context does not grow with the table
+    static <E, D> Stream<D> mapDetached(Stream<E> source, EntityManager entityManager,
+                                        Consumer<List<E>> fetchAssociations, Function<E, D> mapper) {
+        return of(source, ENTITY_CHUNK_SIZE).flatMap(chunk -> {
+            fetchAssociations.accept(chunk);
+            List<D> mapped = chunk.stream().map(mapper).toList();
+            entityManager.clear();
+            return mapped.stream();
+        });
+    }
+
+    static <T> Stream<List<T>> of(Stream<T> source, int size) {
+        Iterator<T> iterator = source.iterator();
+        Iterator<List<T>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!iterator.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> chunk = new ArrayList<>(size);
+                while (chunk.size() < size && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                return chunk;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .onClose(source::close);
+    }
+}
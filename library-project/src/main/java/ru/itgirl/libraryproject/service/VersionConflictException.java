@@ -0,0 +1,20 @@
+package ru.itgirl.libraryproject.service;
+
+import lombok.Getter;
+
+// The client updated a version it read earlier and someone else changed the entity since; carries the current state
+@Getter
+public class VersionConflictException extends RuntimeException {
+
+    private final Object current;
+
+    public VersionConflictException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.itgirl.libraryproject.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.mockito.Mockito.*;
+
+public class BoundedDataSourceTest {
+
+    DataSource delegate;
+
+    BoundedDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        delegate = mock(DataSource.class);
+        when(delegate.getConnection()).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            when(connection.unwrap(PGConnection.class)).thenReturn(mock(PGConnection.class));
+            return connection;
+        });
+        dataSource = new BoundedDataSource(delegate, 2, 50);
+    }
+
+    @Test
+    public void testPermitHeldUntilConnectionClosed() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(delegate, times(2)).getConnection();
+
+        first.close();
+        first.close();
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+        dataSource.getConnection().close();
+        second.close();
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void testFailedConnectionReleasesPermit() throws SQLException {
+        when(delegate.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void testDriverConnectionStillReachable() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertNotNull(connection.unwrap(PGConnection.class));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.itgirl.libraryproject.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BulkheadTest {
+
+    Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofMillis(200));
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    public void testFullBulkheadRejectsImmediately() {
+        bulkhead.submit(this::blocked);
+        bulkhead.submit(this::blocked);
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> bulkhead.submit(() -> "Нос"));
+    }
+
+    @Test
+    public void testTimedOutTaskIsNotStarted() throws Exception {
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<String> running = bulkhead.submit(this::blocked);
+        CompletableFuture<String> queued = bulkhead.submit(() -> {
+            started.set(true);
+            return "Нос";
+        });
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> queued.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(TimeoutException.class, exception.getCause());
+        Assertions.assertTrue(running.isCompletedExceptionally());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getExecutor().getCompletedTaskCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(2, bulkhead.getExecutor().getCompletedTaskCount());
+        Assertions.assertFalse(started.get());
+    }
+
+    @Test
+    public void testStartedWriteOutlivesTheQueueTimeout() throws Exception {
+        Bulkhead writes = new Bulkhead("test-writes", 1, 1, Duration.ofMillis(200), false);
+        try {
+            AtomicBoolean started = new AtomicBoolean();
+            CompletableFuture<String> running = writes.submit(this::blocked);
+            CompletableFuture<String> queued = writes.submit(() -> {
+                started.set(true);
+                return "Нос";
+            });
+
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                    () -> queued.get(5, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(TimeoutException.class, exception.getCause());
+            Thread.sleep(200);
+            Assertions.assertFalse(running.isDone());
+
+            release.countDown();
+            Assertions.assertEquals("Блок", running.get(5, TimeUnit.SECONDS));
+            Assertions.assertFalse(started.get());
+        } finally {
+            writes.shutdown();
+        }
+    }
+
+    private String blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "Блок";
+    }
+}
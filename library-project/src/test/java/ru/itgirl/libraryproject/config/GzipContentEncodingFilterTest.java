@@ -0,0 +1,88 @@
+package ru.itgirl.libraryproject.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class GzipContentEncodingFilterTest {
+
+    private static final String BODY = "{\"name\": \"Роман\"}".repeat(100);
+
+    GzipContentEncodingFilter filter = new GzipContentEncodingFilter(DataSize.ofKilobytes(2));
+
+    @Test
+    public void testStronglyTaggedGzipResponseIsCompressed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/genre/2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, respond("\"v1-json-gzip\"", "gzip"));
+
+        Assertions.assertEquals(Boolean.TRUE, request.getAttribute(GzipContentEncodingFilter.AVAILABLE));
+        Assertions.assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        Assertions.assertEquals(BODY, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void testBodyBelowMinimumSizeIsNotCompressed() throws Exception {
+        String body = "{\"name\": \"Нос\"}";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/book"), response, respond("\"v1-json-gzip\"", "gzip", body));
+
+        Assertions.assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("\"v1-json-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        Assertions.assertEquals(body.getBytes(StandardCharsets.UTF_8).length, response.getContentLength());
+        Assertions.assertEquals(body, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResponsesWithoutStrongTagArePassedThrough() throws Exception {
+        MockHttpServletResponse untagged = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), untagged, respond(null, "gzip"));
+        Assertions.assertEquals(BODY, untagged.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse weak = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), weak, respond("W/\"v1\"", "gzip"));
+        Assertions.assertEquals(BODY, weak.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse identity = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), identity, respond("\"v1-json-identity\"", null));
+        Assertions.assertEquals(BODY, identity.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static FilterChain respond(String etag, String contentEncoding) {
+        return respond(etag, contentEncoding, BODY);
+    }
+
+    private static FilterChain respond(String etag, String contentEncoding, String content) {
+        return (request, response) -> {
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            if (etag != null) {
+                httpResponse.setHeader(HttpHeaders.ETAG, etag);
+            }
+            if (contentEncoding != null) {
+                httpResponse.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            byte[] body = content.getBytes(StandardCharsets.UTF_8);
+            httpResponse.setContentLength(body.length);
+            httpResponse.getOutputStream().write(body);
+        };
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
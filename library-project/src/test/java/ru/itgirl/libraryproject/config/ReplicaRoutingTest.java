@@ -0,0 +1,194 @@
+package ru.itgirl.libraryproject.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.NotFoundException;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Two local PostgreSQL instances stand in for a primary and its replica; the "replica" is written to directly so
+// that reads served by it can be told apart
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "library.datasource.replica.connection-timeout=5s",
+        "library.datasource.replica.maximum-pool-size=2",
+        "library.datasource.replica.health-check-interval=1h",
+        "library.datasource.read-your-writes-window=1h"})
+@DirtiesContext
+public class ReplicaRoutingTest {
+
+    private static final EmbeddedPostgres PRIMARY = start();
+
+    private static final EmbeddedPostgres REPLICA = start();
+
+    private static final JdbcTemplate PRIMARY_JDBC = new JdbcTemplate(PRIMARY.getPostgresDatabase());
+
+    private static final JdbcTemplate REPLICA_JDBC = new JdbcTemplate(REPLICA.getPostgresDatabase());
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PRIMARY.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("library.datasource.replica-urls", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @AfterEach
+    public void removeLeftovers() {
+        SecurityContextHolder.clearContext();
+        REPLICA_JDBC.update("delete from author where surname = 'Репликов'");
+        PRIMARY_JDBC.update("delete from book where name like 'Реплика%'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterAll
+    static void stopDatabases() throws IOException {
+        PRIMARY.close();
+        REPLICA.close();
+    }
+
+    @Test
+    public void testReadOnlyLookupGoesToReplica() {
+        REPLICA_JDBC.update("insert into author(id, name, surname) values (900, 'Только', 'Репликов')");
+
+        Assertions.assertEquals("Репликов", authorService.getAuthorById(900L).getSurname());
+    }
+
+    @Test
+    public void testWriterReadsOwnWritesFromPrimary() {
+        REPLICA_JDBC.update("insert into author(id, name, surname) values (901, 'Только', 'Репликов')");
+        signIn("InnaVol");
+
+        Long bookId = bookService.createBook(new BookCreateDto("Реплика: запись", 1L)).getId();
+
+        Assertions.assertEquals(1, PRIMARY_JDBC.queryForObject("select count(*) from book where id = ?", Integer.class, bookId));
+        Assertions.assertEquals(0, REPLICA_JDBC.queryForObject("select count(*) from book where id = ?", Integer.class, bookId));
+        Assertions.assertThrows(NotFoundException.class, () -> authorService.getAuthorById(901L));
+
+        signIn("DimaTot");
+        Assertions.assertEquals("Репликов", authorService.getAuthorById(901L).getSurname());
+    }
+
+    @Test
+    public void testRolledBackWriteKeepsReadsOnReplica() {
+        REPLICA_JDBC.update("insert into author(id, name, surname) values (903, 'Только', 'Репликов')");
+        signIn("AnnaOtk");
+
+        Assertions.assertThrows(RuntimeException.class,
+                () -> bookService.createBook(new BookCreateDto("Реплика: откат", 999L)));
+
+        Assertions.assertEquals("Репликов", authorService.getAuthorById(903L).getSurname());
+    }
+
+    @Test
+    public void testUnhealthyReplicaFallsBackToPrimary() {
+        REPLICA_JDBC.update("insert into author(id, name, surname) values (902, 'Только', 'Репликов')");
+        double fallbacks = meterRegistry.counter("library.datasource.replica.fallbacks").count();
+        JdbcTemplate replicaAdmin = new JdbcTemplate(REPLICA.getDatabase("postgres", "template1"));
+        replicaAdmin.execute("alter database postgres allow_connections false");
+        replicaAdmin.queryForList("select pg_terminate_backend(pid) from pg_stat_activity "
+                + "where datname = 'postgres' and pid <> pg_backend_pid()");
+        try {
+            replicaRoutingDataSource.checkReplicas();
+            Assertions.assertEquals(0, replicaRoutingDataSource.replicasUp());
+
+            Assertions.assertThrows(NotFoundException.class, () -> authorService.getAuthorById(902L));
+            Assertions.assertEquals("Пушкин", authorService.getAuthorById(1L).getSurname());
+            Assertions.assertEquals(fallbacks + 2, meterRegistry.counter("library.datasource.replica.fallbacks").count());
+        } finally {
+            replicaAdmin.execute("alter database postgres allow_connections true");
+        }
+
+        replicaRoutingDataSource.checkReplicas();
+        Assertions.assertEquals(1, replicaRoutingDataSource.replicasUp());
+        entityManagerFactory.getCache().evictAll();
+        Assertions.assertEquals("Репликов", authorService.getAuthorById(902L).getSurname());
+    }
+
+    @Test
+    public void testExhaustedReplicaPoolStaysInRotation() throws SQLException {
+        REPLICA_JDBC.update("insert into author(id, name, surname) values (904, 'Только', 'Репликов')");
+        double fallbacks = meterRegistry.counter("library.datasource.replica.fallbacks").count();
+        List<Connection> held = new ArrayList<>();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            held.add(replicaRoutingDataSource.getConnection());
+            held.add(replicaRoutingDataSource.getConnection());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+        try {
+            // The replica has no free connection, so this read waits out the timeout and is served by the primary
+            Assertions.assertThrows(NotFoundException.class, () -> authorService.getAuthorById(904L));
+            Assertions.assertEquals(fallbacks + 1, meterRegistry.counter("library.datasource.replica.fallbacks").count());
+            replicaRoutingDataSource.checkReplicas();
+            Assertions.assertEquals(1, replicaRoutingDataSource.replicasUp());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        entityManagerFactory.getCache().evictAll();
+        Assertions.assertEquals("Репликов", authorService.getAuthorById(904L).getSurname());
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    // Both instances get the same schema and seed data, as a streaming replica would
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                    .setLocaleConfig("lc-ctype", "C.UTF-8")
+                    .start();
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(postgres.getPostgresDatabase());
+            liquibase.setChangeLog("classpath:/db/baseChangelog.xml");
+            liquibase.setResourceLoader(new DefaultResourceLoader());
+            liquibase.afterPropertiesSet();
+            return postgres;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start an embedded PostgreSQL", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.itgirl.libraryproject.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class SingleFlightCaffeineCacheTest {
+
+    SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("books", Caffeine.newBuilder().build(), true);
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> cache.get("Нос", () -> {
+                        loads.incrementAndGet();
+                        loaderStarted.countDown();
+                        release.await();
+                        return "Нос";
+                    })))
+                    .toList();
+            Assertions.assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Assertions.assertEquals("Нос", result.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, loads.get());
+            Assertions.assertEquals("Нос", cache.get("Нос", String.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        Cache.ValueRetrievalException exception = Assertions.assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("Нос", () -> {
+                    throw new IllegalStateException("Book not found");
+                }));
+
+        Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+        Assertions.assertNull(cache.get("Нос"));
+        Assertions.assertEquals("Нос", cache.get("Нос", () -> "Нос"));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.config.Bulkheads;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = {"library.bulkhead.listings.threads=1", "library.bulkhead.listings.queue-capacity=1"})
+public class AsyncEndpointTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Test
+    public void testAsyncLookupHonoursVersionTag() throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/async/book").param("name", "Нос"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String etag = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Нос"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(etag);
+
+        statistics().clear();
+        MvcResult revalidated = mockMvc.perform(MockMvcRequestBuilders.get("/async/book").param("name", "Нос")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(revalidated))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+    }
+
+    @Test
+    public void testAsyncRevalidationParsesEntityTagList() throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/async/genre/2")).andReturn();
+        String etag = mockMvc.perform(asyncDispatch(started))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String opaque = etag.substring(1, etag.length() - 1);
+
+        Assertions.assertEquals(304, asyncStatus("\"stale\"", "W/" + etag));
+        Assertions.assertEquals(304, asyncStatus("\"stale\", W/" + etag));
+        Assertions.assertEquals(304, asyncStatus("*"));
+        Assertions.assertEquals(200, asyncStatus("\"" + opaque + "-old\", \"stale\""));
+        Assertions.assertEquals(200, asyncStatus("\"" + opaque + ", stale\""));
+    }
+
+    @Test
+    public void testFullListingBulkheadDoesNotBlockLookups() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        bulkheads.getListings().submit(() -> await(release));
+        bulkheads.getListings().submit(() -> await(release));
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/async/genre/2"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+            MvcResult lookup = mockMvc.perform(MockMvcRequestBuilders.get("/async/author/1")).andReturn();
+            mockMvc.perform(asyncDispatch(lookup))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.surname").value("Пушкин"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private int asyncStatus(String... ifNoneMatch) throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/async/genre/2")
+                        .header(HttpHeaders.IF_NONE_MATCH, (Object[]) ifNoneMatch))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getStatus();
+    }
+
+    private static Boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.itgirl.libraryproject.controller;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -145,10 +146,12 @@ public class AuthorRestControllerTest {
 
     @Test
     public void testDeleteAuthor() throws Exception {
-        Long id = 2L;
+        // The delete succeeds now, so it removes an author of its own instead of one the other tests read
+        Long id = authorRepository.save(Author.builder().name("Удаляемый").surname("Автор").build()).getId();
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/author/delete/{id}", id))
                 .andExpect(status().isOk());
+        Assertions.assertTrue(authorRepository.findById(id).isEmpty());
     }
 
     @Test
@@ -0,0 +1,144 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.model.Book;
+import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+public class BatchDeleteTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @AfterEach
+    public void removeLeftovers() {
+        jdbcTemplate.update("delete from author_book where book_id in (select id from book where name like 'Серия%')");
+        jdbcTemplate.update("delete from book where name like 'Серия%'");
+        jdbcTemplate.update("delete from author where surname = 'Серийный'");
+        jdbcTemplate.update("delete from genre where name = 'Серия'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testDeleteBooksByIdsRemovesLinks() throws Exception {
+        Long first = createLinkedBook("Серия: том 1", 1L);
+        Long second = createLinkedBook("Серия: том 2", 1L);
+        Assertions.assertEquals("Серия: том 1", bookService.getBookByNameV1("Серия: том 1").getName());
+        Long otherId = bookService.getBookByNameV1("Нос").getId();
+
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/batch").param("ids", first + "," + second + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.linksDeleted").value(2));
+        Assertions.assertEquals(1, statistics().getPrepareStatementCount());
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+        // Only the deleted books leave the second-level cache
+        Assertions.assertFalse(entityManagerFactory.getCache().contains(Book.class, first));
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Book.class, otherId));
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Genre.class, 1L));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Серия: том 1"));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from author_book where book_id in (?, ?)", Integer.class, first, second));
+    }
+
+    @Test
+    public void testDeleteBooksByGenreAndByAuthor() throws Exception {
+        Long genreId = jdbcTemplate.queryForObject("insert into genre(name) values ('Серия') returning id", Long.class);
+        createLinkedBook("Серия: по жанру 1", genreId);
+        createLinkedBook("Серия: по жанру 2", genreId);
+        Assertions.assertEquals("Серия: по жанру 1", bookService.getBookByNameV1("Серия: по жанру 1").getName());
+
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/batch").param("genre", genreId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.linksDeleted").value(2));
+        Assertions.assertEquals(1, statistics().getPrepareStatementCount());
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Серия: по жанру 1"));
+
+        Long authorId = authorService.createAuthor(new AuthorCreateDto("Автор", "Серийный")).getId();
+        Long bookId = bookService.createBook(new BookCreateDto("Серия: по автору", 1L)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, ?), (?, 1)", bookId, authorId, bookId);
+
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/batch").param("author", authorId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.linksDeleted").value(2));
+        Assertions.assertEquals(1, statistics().getPrepareStatementCount());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from author where id = ?", Integer.class, authorId));
+    }
+
+    @Test
+    public void testDeleteAuthorsKeepsBooks() throws Exception {
+        Long authorId = authorService.createAuthor(new AuthorCreateDto("Автор", "Серийный")).getId();
+        Long bookId = bookService.createBook(new BookCreateDto("Серия: без автора", 1L)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, ?)", bookId, authorId);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/author/batch").param("ids", authorId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.linksDeleted").value(1));
+        Assertions.assertTrue(bookService.getBookByNameV1("Серия: без автора").getAuthors().isEmpty());
+    }
+
+    @Test
+    public void testDeleteSingleAuthorRemovesLinks() throws Exception {
+        Long authorId = authorService.createAuthor(new AuthorCreateDto("Автор", "Серийный")).getId();
+        Long bookId = bookService.createBook(new BookCreateDto("Серия: один автор", 1L)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, ?)", bookId, authorId);
+        Assertions.assertEquals(1, bookService.getBookByNameV1("Серия: один автор").getAuthors().size());
+
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/author/delete/{id}", authorId))
+                .andExpect(status().isOk());
+        Assertions.assertEquals(1, statistics().getPrepareStatementCount());
+        Assertions.assertTrue(bookService.getBookByNameV1("Серия: один автор").getAuthors().isEmpty());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/delete/{id}", bookId))
+                .andExpect(status().isOk());
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Серия: один автор"));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/author/delete/{id}", authorId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/delete/{id}", bookId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testCriteriaAreExclusive() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/batch"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/batch").param("ids", "1").param("genre", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createLinkedBook(String name, Long genreId) {
+        Long bookId = bookService.createBook(new BookCreateDto(name, genreId)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, 1)", bookId);
+        return bookId;
+    }
+}
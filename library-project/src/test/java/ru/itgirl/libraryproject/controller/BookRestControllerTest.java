@@ -123,10 +123,14 @@ public class BookRestControllerTest {
     }
     @Test
     public void testDeleteBook() throws Exception {
-        Long id = 18L;
+        // A missing book is a 404, so the test deletes a book of its own
+        Genre genre = bookRepository.findById(1L).orElseThrow().getGenre();
+        Long id = bookRepository.save(Book.builder().name("Удаляемая книга").genre(genre).build()).getId();
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/book/delete/{id}", id))
                 .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/book/delete/{id}", id))
+                .andExpect(status().isNotFound());
     }
 
     @Test
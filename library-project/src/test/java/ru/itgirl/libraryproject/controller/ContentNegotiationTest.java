@@ -0,0 +1,77 @@
+package ru.itgirl.libraryproject.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.dto.GenreDto;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+public class ContentNegotiationTest extends QueryBudgetTestSupport {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testGenreAsCbor() throws Exception {
+        Assertions.assertEquals(getGenre(MediaType.APPLICATION_JSON, objectMapper),
+                getGenre(MediaType.APPLICATION_CBOR, new CBORMapper()));
+    }
+
+    @Test
+    public void testGenreAsSmile() throws Exception {
+        Assertions.assertEquals(getGenre(MediaType.APPLICATION_JSON, objectMapper),
+                getGenre(SMILE, new SmileMapper()));
+    }
+
+    @Test
+    public void testJsonRemainsDefault() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    @Test
+    public void testExportIsGzippedOnlyWhenGzipIsAcceptable() throws Exception {
+        exportAuthors("gzip, deflate").andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        exportAuthors("br;q=1.0, *;q=0.5").andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        exportAuthors("gzip;q=0, *").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        exportAuthors("x-gzip-foo").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private ResultActions exportAuthors(String acceptEncoding) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/export/authors")
+                        .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(status().isOk());
+    }
+
+    private GenreDto getGenre(MediaType mediaType, ObjectMapper reader) throws Exception {
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/genre/2").accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+        GenreDto genre = reader.readValue(body, GenreDto.class);
+        Assertions.assertFalse(genre.getBooks().isEmpty());
+        return genre;
+    }
+}
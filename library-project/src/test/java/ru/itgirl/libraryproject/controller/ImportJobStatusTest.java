@@ -0,0 +1,87 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.service.CatalogImportService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "library.import.directory=")
+public class ImportJobStatusTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @AfterEach
+    public void removeJobs() {
+        jdbcTemplate.update("delete from book where name like 'Импорт%'");
+        jdbcTemplate.update("delete from import_job");
+    }
+
+    @Test
+    public void testMissingJobIsNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/import/jobs/999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail").value("Import job not found"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/jobs/999999/resume"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testResumingCompletedJobIsConflict() throws Exception {
+        Long id = jdbcTemplate.queryForObject("insert into import_job(source, format, status, started_at, updated_at) "
+                + "values ('upload', 'NDJSON', 'COMPLETED', now(), now()) returning id", Long.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/jobs/{id}/resume", id))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Import job is already completed"));
+    }
+
+    @Test
+    public void testFileImportsDisabledIsNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/catalog/file").param("name", "catalog.csv"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail").value("File imports are disabled"));
+    }
+
+    // The upload is queued and answered before the import runs; the job reports the outcome
+    @Test
+    public void testUploadIsAcceptedAndRunsInTheBackground() throws Exception {
+        String location = mockMvc.perform(MockMvcRequestBuilders.post("/import/catalog")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"Импорт: фон\", \"genre\": \"Роман\", \"authors\": []}\n"
+                                .getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.id").isNumber())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!"COMPLETED".equals(catalogImportService.getImportJob(id).getStatus())) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Import job did not finish");
+            Thread.sleep(20);
+        }
+        mockMvc.perform(MockMvcRequestBuilders.get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booksCreated").value(1));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureObservability
+public class MetricsEndpointTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testPrometheusScrapeCoversHotPaths() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Нос")).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/2")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertContains(scrape, "library_service_seconds_bucket{");
+        assertContains(scrape, "class=\"ru.itgirl.libraryproject.service.BookServiceImpl\"");
+        assertContains(scrape, "method=\"getBookByNameV1\"");
+        assertContains(scrape, "method=\"getGenreById\"");
+        assertContains(scrape, "spring_data_repository_invocations_seconds_bucket{");
+        assertContains(scrape, "repository=\"GenreRepository\"");
+        assertContains(scrape, "hibernate_query_executions_total");
+        assertContains(scrape, "hibernate_entities_loads_total");
+        assertContains(scrape, "hibernate_collections_fetches_total");
+        assertContains(scrape, "hibernate_second_level_cache_requests_total");
+    }
+
+    private static void assertContains(String scrape, String expected) {
+        Assertions.assertTrue(scrape.contains(expected), () -> "Scrape has no " + expected);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.itgirl.libraryproject.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "library.lookup-filter.enabled=true")
+public class NotFoundTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testMissingBookIsAnsweredWithoutQuery() throws Exception {
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Несуществующая книга"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail").value("Book not found"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/book/v3").param("name", "Несуществующая книга"))
+                .andExpect(status().isNotFound());
+        Assertions.assertEquals(0, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void testMissingAuthorIsNotFound() throws Exception {
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/author").param("surname", "Несуществующий"))
+                .andExpect(status().isNotFound());
+        Assertions.assertEquals(0, statistics().getPrepareStatementCount());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/author/999999"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testCreatedEntitiesPassTheFilter() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Новая книга фильтра"))
+                .andExpect(status().isNotFound());
+        Long bookId = bookService.createBook(new BookCreateDto("Новая книга фильтра", 1L)).getId();
+        Long authorId = authorService.createAuthor(new AuthorCreateDto("Антон", "Фильтров")).getId();
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Новая книга фильтра"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(MockMvcRequestBuilders.get("/author").param("surname", "Фильтров"))
+                    .andExpect(status().isOk());
+        } finally {
+            jdbcTemplate.update("delete from book where id = ?", bookId);
+            jdbcTemplate.update("delete from author where id = ?", authorId);
+            entityManagerFactory.getCache().evictAll();
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateIsExposed() {
+        double rate = meterRegistry.get("library.lookup.filter.expected.false.positive.rate").tag("filter", "authors")
+                .gauge().value();
+        Assertions.assertTrue(rate >= 0 && rate < 0.01);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.itgirl.libraryproject.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BookUpdateDto;
+import ru.itgirl.libraryproject.repository.GenreRepository;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+public class OptimisticUpdateTest extends QueryBudgetTestSupport {
+
+    private static final long RACE_GENRE_ID = 3L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private GenreRepository genreRepository;
+
+    @AfterEach
+    public void removeLeftovers() {
+        reset(genreRepository);
+        jdbcTemplate.update("delete from book where name like 'Гонка%'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testStaleBookVersionIsConflictWithCurrentState() throws Exception {
+        BookDto created = bookService.createBook(new BookCreateDto("Гонка: версия", 1L));
+        BookDto updated = bookService.updateBook(new BookUpdateDto(created.getId(), "Гонка: правка", 1L, created.getVersion()));
+        Assertions.assertEquals(created.getVersion() + 1, updated.getVersion());
+        double conflicts = counter("library.update.conflicts", "updateBook");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/book/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": " + created.getId() + ", \"name\": \"Гонка: устаревшая\", \"genre_id\": 1, "
+                                + "\"version\": " + created.getVersion() + "}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.current.name").value("Гонка: правка"))
+                .andExpect(jsonPath("$.current.version").value(updated.getVersion()));
+
+        Assertions.assertEquals(conflicts + 1, counter("library.update.conflicts", "updateBook"));
+        Assertions.assertEquals("Гонка: правка", jdbcTemplate.queryForObject(
+                "select name from book where id = ?", String.class, created.getId()));
+    }
+
+    @Test
+    public void testStaleAuthorVersionIsConflict() throws Exception {
+        AuthorDto author = authorService.getAuthorById(5L);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/author/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 5, \"name\": \"" + author.getName() + "\", \"surname\": \"Гонка\", "
+                                + "\"version\": " + (author.getVersion() + 1) + "}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.current.surname").value(author.getSurname()));
+        Assertions.assertEquals(author.getVersion(), authorService.updateAuthor(
+                new AuthorUpdateDto(5L, author.getName(), author.getSurname())).getVersion());
+    }
+
+    @Test
+    public void testLostRaceIsRetried() {
+        BookDto created = bookService.createBook(new BookCreateDto("Гонка: повтор", 1L));
+        concurrentWriterBumps(created.getId(), 1);
+        double retries = counter("library.update.retries", "updateBook");
+
+        BookDto updated = bookService.updateBook(new BookUpdateDto(created.getId(), "Гонка: после повтора", RACE_GENRE_ID));
+
+        Assertions.assertEquals("Гонка: после повтора", updated.getName());
+        Assertions.assertEquals(created.getVersion() + 2, updated.getVersion());
+        Assertions.assertEquals(retries + 1, counter("library.update.retries", "updateBook"));
+    }
+
+    @Test
+    public void testRetriesAreBounded() throws Exception {
+        BookDto created = bookService.createBook(new BookCreateDto("Гонка: без конца", 1L));
+        concurrentWriterBumps(created.getId(), Integer.MAX_VALUE);
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class, () -> bookService.updateBook(
+                new BookUpdateDto(created.getId(), "Гонка: не сохранится", RACE_GENRE_ID)));
+        mockMvc.perform(MockMvcRequestBuilders.put("/book/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": " + created.getId() + ", \"name\": \"Гонка: не сохранится\", \"genre_id\": "
+                                + RACE_GENRE_ID + "}"))
+                .andExpect(status().isConflict())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    // The caller's transaction is rollback-only after the lost race, so a retry inside it could never commit
+    @Test
+    public void testLostRaceInCallersTransactionIsNotRetried() {
+        BookDto created = bookService.createBook(new BookCreateDto("Гонка: чужая транзакция", 1L));
+        concurrentWriterBumps(created.getId(), 1);
+        double retries = counter("library.update.retries", "updateBook");
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> bookService.updateBook(new BookUpdateDto(created.getId(), "Гонка: не сохранится", RACE_GENRE_ID))));
+
+        Assertions.assertEquals(retries, counter("library.update.retries", "updateBook"));
+        Assertions.assertEquals("Гонка: чужая транзакция", jdbcTemplate.queryForObject(
+                "select name from book where id = ?", String.class, created.getId()));
+    }
+
+    // updateBook reads the book, then the genre: another transaction commits a new version in between
+    private void concurrentWriterBumps(Long bookId, int times) {
+        int[] remaining = {times};
+        // The repository is a JDK proxy, so the spy delegates to it instead of calling a real method
+        Answer<?> delegate = mockingDetails(genreRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            if (remaining[0]-- > 0) {
+                CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                        "update book set version = version + 1 where id = ?", bookId)).join();
+            }
+            return delegate.answer(invocation);
+        }).when(genreRepository).findById(eq(RACE_GENRE_ID));
+    }
+
+    private double counter(String name, String method) {
+        return meterRegistry.find(name).tag("method", method).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.itgirl.libraryproject.dto.BookListItemDto;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+// Served by the real Tomcat, so the response is chunked the way a browser receives it
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.cache.type=none",
+        "zonky.test.database.postgres.initdb.properties.lc-ctype=C.UTF-8"})
+public class StreamingViewTest extends QueryBudgetTestSupport {
+
+    private static final int STREAMED_AUTHORS = 1100;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StreamingViewRenderer streamingViewRenderer;
+
+    @AfterEach
+    public void removeAuthors() {
+        jdbcTemplate.update("delete from author_book where author_id in (select id from author where surname like 'Поток-%')");
+        jdbcTemplate.update("delete from author where surname like 'Поток-%'");
+    }
+
+    @Test
+    public void testBooksStreamInOneStatement() throws Exception {
+        get("/books/stream", "InnaVol:Password1");
+        statistics().clear();
+
+        HttpResponse<String> response = get("/books/stream", "InnaVol:Password1");
+
+        assertChunkedHtml(response);
+        Assertions.assertEquals(count("select count(*) from book"), rows(response.body()));
+        Assertions.assertTrue(response.body().contains("Мастер и Маргарита"));
+        Assertions.assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    // One query streams the authors, one more per chunk of 500 loads their books and genres
+    @Test
+    public void testAuthorsStreamInChunks() throws Exception {
+        jdbcTemplate.update("insert into author(name, surname) select 'Автор', 'Поток-' || g from generate_series(1, ?) g",
+                STREAMED_AUTHORS);
+        jdbcTemplate.update("insert into author_book(book_id, author_id) select 4, id from author where surname like 'Поток-%'");
+        get("/authors/stream", "DimaTot:Password3");
+        statistics().clear();
+
+        HttpResponse<String> response = get("/authors/stream", "DimaTot:Password3");
+
+        assertChunkedHtml(response);
+        Assertions.assertEquals(count("select count(*) from author_book"), rows(response.body()));
+        Assertions.assertTrue(response.body().contains("Поток-" + STREAMED_AUTHORS));
+        long authors = count("select count(*) from author");
+        Assertions.assertEquals(1 + (authors + 499) / 500, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    public void testRendererWritesEveryItem() {
+        StringWriter writer = new StringWriter();
+        List<BookListItemDto> books = List.of(new BookListItemDto(1L, "Нос", "Рассказ"),
+                new BookListItemDto(2L, "Шинель", "Рассказ"));
+
+        streamingViewRenderer.render("books", Map.of("books", books.iterator()), writer);
+
+        Assertions.assertEquals(2, rows(writer.toString()));
+        Assertions.assertTrue(writer.toString().contains("Шинель"));
+    }
+
+    @Test
+    public void testRendererReportsMissingView() {
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> streamingViewRenderer.render("missing", Map.of(), new StringWriter()));
+    }
+
+    private HttpResponse<String> get(String path, String credentials) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString(credentials.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private void assertChunkedHtml(HttpResponse<String> response) {
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(StreamingViewRenderer.CONTENT_TYPE,
+                response.headers().firstValue("Content-Type").orElse(null).replace(" ", ""));
+        Assertions.assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        Assertions.assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static long rows(String html) {
+        return html.split("class=\"table-row\"", -1).length - 1;
+    }
+}
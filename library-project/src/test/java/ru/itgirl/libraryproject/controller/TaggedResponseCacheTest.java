@@ -0,0 +1,92 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(properties = "spring.cache.type=caffeine")
+public class TaggedResponseCacheTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @AfterEach
+    public void removeRows() {
+        jdbcTemplate.update("delete from author_book where book_id in (select id from book where name = 'Книга с тегом')");
+        jdbcTemplate.update("delete from book where name = 'Книга с тегом'");
+        jdbcTemplate.update("delete from author where surname in ('Тегов', 'Тегова')");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testRevalidationRunsOnlyTheTagQuery() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Нос"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String authorTag = mockMvc.perform(MockMvcRequestBuilders.get("/author/{id}", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics().clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Нос").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        MvcResult revalidated = mockMvc.perform(MockMvcRequestBuilders.get("/async/author/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, authorTag))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(revalidated))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, authorTag));
+        Assertions.assertEquals(2, statistics().getPrepareStatementCount());
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+    }
+
+    // The author's version is part of the book's version vector, and the update evicts the cached book body
+    @Test
+    public void testWriteChangesBodyAndTagTogether() throws Exception {
+        Long authorId = authorService.createAuthor(new AuthorCreateDto("Антон", "Тегов")).getId();
+        Long bookId = bookService.createBook(new BookCreateDto("Книга с тегом", 1L)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, ?)", bookId, authorId);
+        entityManagerFactory.getCache().evictAll();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Книга с тегом"))
+                .andExpect(jsonPath("$.authors[0].surname").value("Тегов"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        authorService.updateAuthor(new AuthorUpdateDto(authorId, "Антон", "Тегова"));
+
+        String changedTag = mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Книга с тегом")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors[0].surname").value("Тегова"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(etag, changedTag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Книга с тегом")
+                        .header(HttpHeaders.IF_NONE_MATCH, changedTag))
+                .andExpect(status().isNotModified());
+    }
+}
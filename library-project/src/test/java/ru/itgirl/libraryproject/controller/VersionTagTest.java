@@ -0,0 +1,106 @@
+package ru.itgirl.libraryproject.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.service.AuthorService;
+import ru.itgirl.libraryproject.service.BookService;
+import ru.itgirl.libraryproject.service.QueryBudgetTestSupport;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+public class VersionTagTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    public void testBookNotModified() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Нос"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(etag);
+        Assertions.assertTrue(etag.matches("\"[0-9a-f]+-json-identity\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Нос").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    public void testEachFormatHasItsOwnTag() throws Exception {
+        String jsonTag = mockMvc.perform(MockMvcRequestBuilders.get("/genre/2"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborTag = mockMvc.perform(MockMvcRequestBuilders.get("/genre/2").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertEquals(jsonTag.replace("-json-", "-cbor-"), cborTag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/2").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/2").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testAuthorChangeUpdatesBookTag() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Мастер и Маргарита"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        authorService.updateAuthor(new AuthorUpdateDto(4L, "Михаил", "Булгаков-Версия"));
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/book").param("name", "Мастер и Маргарита")
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk());
+        } finally {
+            authorService.updateAuthor(new AuthorUpdateDto(4L, "Михаил", "Булгаков"));
+        }
+    }
+
+    @Test
+    public void testNewBookUpdatesAuthorAndGenreTags() throws Exception {
+        String authorTag = mockMvc.perform(MockMvcRequestBuilders.get("/author/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String genreTag = mockMvc.perform(MockMvcRequestBuilders.get("/genre/3"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(MockMvcRequestBuilders.get("/genre/3").header(HttpHeaders.IF_NONE_MATCH, genreTag))
+                .andExpect(status().isNotModified());
+
+        Long bookId = bookService.createBook(new BookCreateDto("Версия Онегина", 3L)).getId();
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, 1)", bookId);
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/author/1").header(HttpHeaders.IF_NONE_MATCH, authorTag))
+                    .andExpect(status().isOk());
+            mockMvc.perform(MockMvcRequestBuilders.get("/genre/3").header(HttpHeaders.IF_NONE_MATCH, genreTag))
+                    .andExpect(status().isOk());
+        } finally {
+            jdbcTemplate.update("delete from author_book where book_id = ?", bookId);
+            jdbcTemplate.update("delete from book where id = ?", bookId);
+            entityManagerFactory.getCache().evictAll();
+        }
+    }
+
+    @Test
+    public void testUnknownAuthorIsNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/author/{id}", 999_999L).header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,62 @@
+package ru.itgirl.libraryproject.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EntityLogSamplerTest {
+
+    LoggerContext context = new LoggerContext();
+
+    Logger logger = context.getLogger("ru.itgirl.libraryproject.service.BookServiceImpl");
+
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        EntityLogSampler sampler = new EntityLogSampler();
+        sampler.setSampleRate(10);
+        sampler.setContext(context);
+        sampler.start();
+        context.addTurboFilter(sampler);
+        appender.setContext(context);
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    public void testDisabledEntityEventsAreSampled() {
+        for (int i = 0; i < 100; i++) {
+            logger.debug(LogMarkers.ENTITY, "Book: {}", i);
+        }
+
+        Assertions.assertEquals(10, appender.list.size());
+        Assertions.assertEquals("Book: 9", appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    public void testEnabledAndUnmarkedEventsAreNotSampled() {
+        for (int i = 0; i < 100; i++) {
+            logger.debug("Book: {}", i);
+        }
+        Assertions.assertTrue(appender.list.isEmpty());
+
+        logger.setLevel(Level.DEBUG);
+        for (int i = 0; i < 100; i++) {
+            logger.debug(LogMarkers.ENTITY, "Book: {}", i);
+        }
+        Assertions.assertEquals(100, appender.list.size());
+    }
+}
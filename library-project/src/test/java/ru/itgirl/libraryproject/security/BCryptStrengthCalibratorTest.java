@@ -0,0 +1,63 @@
+package ru.itgirl.libraryproject.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+public class BCryptStrengthCalibratorTest {
+
+    private static final Duration TARGET = Duration.ofMillis(250);
+
+    @Test
+    public void testConfiguredStrengthSkipsCalibration() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(12, TARGET, 10, 16, 5,
+                (strength, samples) -> Assertions.fail("Configured strength must not be timed"));
+
+        Assertions.assertEquals(12, calibrator.getStrength());
+    }
+
+    // Strength 10 verifies in 50 ms and every round doubles it: 12 is the last one at or below 250 ms
+    @Test
+    public void testPicksStrongestCostWithinTarget() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(0, TARGET, 10, 16, 5,
+                (strength, samples) -> samples(samples, millisAt(strength)));
+
+        Assertions.assertEquals(12, calibrator.getStrength());
+    }
+
+    // One GC pause and one lucky run per strength would move a single-sample calibration either way
+    @Test
+    public void testOutlierSamplesDoNotMoveTheStrength() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(0, TARGET, 10, 16, 5, (strength, samples) -> {
+            long[] nanos = samples(samples, millisAt(strength));
+            nanos[0] = Duration.ofSeconds(5).toNanos();
+            nanos[samples - 1] = 1;
+            return nanos;
+        });
+
+        Assertions.assertEquals(12, calibrator.getStrength());
+    }
+
+    @Test
+    public void testStrengthIsClampedToConfiguredRange() {
+        BCryptStrengthCalibrator fast = new BCryptStrengthCalibrator(0, TARGET, 10, 14, 5,
+                (strength, samples) -> samples(samples, 0));
+        BCryptStrengthCalibrator slow = new BCryptStrengthCalibrator(0, TARGET, 10, 14, 5,
+                (strength, samples) -> samples(samples, 10_000));
+
+        Assertions.assertEquals(14, fast.getStrength());
+        Assertions.assertEquals(10, slow.getStrength());
+    }
+
+    private static long millisAt(int strength) {
+        return 50L << Math.max(strength - 10, 0) >> Math.max(10 - strength, 0);
+    }
+
+    private static long[] samples(int samples, long millis) {
+        long[] nanos = new long[samples];
+        Arrays.fill(nanos, Duration.ofMillis(millis).toNanos());
+        return nanos;
+    }
+}
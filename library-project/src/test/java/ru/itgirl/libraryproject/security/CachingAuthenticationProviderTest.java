@@ -0,0 +1,84 @@
+package ru.itgirl.libraryproject.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingAuthenticationProviderTest {
+
+    AuthenticationProvider delegate;
+
+    MeterRegistry meterRegistry;
+
+    CredentialCache credentialCache;
+
+    CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(AuthenticationProvider.class);
+        meterRegistry = new SimpleMeterRegistry();
+        credentialCache = new CredentialCache(100, Duration.ofMinutes(5), meterRegistry);
+        provider = new CachingAuthenticationProvider(delegate, credentialCache);
+        when(delegate.authenticate(any())).thenAnswer(invocation -> {
+            Authentication request = invocation.getArgument(0);
+            if (!"Password1".equals(request.getCredentials())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            return UsernamePasswordAuthenticationToken.authenticated(request.getName(), null,
+                    AuthorityUtils.createAuthorityList("ROLE_reader"));
+        });
+    }
+
+    @Test
+    public void testRepeatedLoginIsServedFromCache() {
+        Authentication first = provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password1"));
+        Authentication second = provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password1"));
+
+        Assertions.assertTrue(first.isAuthenticated());
+        Assertions.assertTrue(second.isAuthenticated());
+        Assertions.assertEquals("InnaVol", second.getName());
+        Assertions.assertEquals(first.getAuthorities(), second.getAuthorities());
+        Assertions.assertEquals(1, cacheGets("hit"));
+        Assertions.assertEquals(1, cacheGets("miss"));
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    public void testWrongPasswordIsNotCached() {
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password1"));
+
+        Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password2")));
+        Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password2")));
+        verify(delegate, times(3)).authenticate(any());
+    }
+
+    @Test
+    public void testEvictForcesFullAuthentication() {
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password1"));
+        credentialCache.evict("InnaVol");
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("InnaVol", "Password1"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "credentials").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.itgirl.libraryproject.security;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The security filters stay on: logins go through DaoAuthenticationProvider and its password upgrade
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "library.security.bcrypt.strength=5",
+        "zonky.test.database.postgres.initdb.properties.lc-ctype=C.UTF-8"})
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+@AutoConfigureMockMvc
+public class PasswordStorageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    public void removeUsers() {
+        jdbcTemplate.update("delete from users where login like 'Rehash%'");
+    }
+
+    @Test
+    public void testMigrationHashedSeededPasswords() {
+        List<Map<String, Object>> users = jdbcTemplate.queryForList("select login, password from users");
+
+        Assertions.assertEquals(4, users.size());
+        for (Map<String, Object> user : users) {
+            Assertions.assertTrue(((String) user.get("password")).startsWith("{bcrypt}$2a$10$"), () -> user.toString());
+        }
+        Assertions.assertTrue(passwordEncoder.matches("Password1", password("InnaVol")));
+        Assertions.assertFalse(passwordEncoder.matches("Password2", password("InnaVol")));
+    }
+
+    @Test
+    public void testPlaintextPasswordIsRehashedOnLogin() throws Exception {
+        jdbcTemplate.update("insert into users(login, password, roles) values ('RehashNoop', '{noop}Secret1', 'reader')");
+
+        login("RehashNoop", "Secret1");
+
+        Assertions.assertTrue(password("RehashNoop").startsWith("{bcrypt}$2a$05$"));
+        Assertions.assertTrue(passwordEncoder.matches("Secret1", password("RehashNoop")));
+    }
+
+    @Test
+    public void testWeakBCryptHashIsRehashedOnLogin() throws Exception {
+        jdbcTemplate.update("insert into users(login, password, roles) values ('RehashWeak', ?, 'reader')",
+                "{bcrypt}" + new BCryptPasswordEncoder(4).encode("Secret2"));
+
+        login("RehashWeak", "Secret2");
+
+        Assertions.assertTrue(password("RehashWeak").startsWith("{bcrypt}$2a$05$"));
+        Assertions.assertTrue(passwordEncoder.matches("Secret2", password("RehashWeak")));
+    }
+
+    @Test
+    public void testCurrentHashIsKeptOnLogin() throws Exception {
+        String hash = "{bcrypt}" + new BCryptPasswordEncoder(5).encode("Secret3");
+        jdbcTemplate.update("insert into users(login, password, roles) values ('RehashKept', ?, 'reader')", hash);
+
+        login("RehashKept", "Secret3");
+
+        Assertions.assertEquals(hash, password("RehashKept"));
+    }
+
+    @Test
+    public void testFailedLoginDoesNotRehash() throws Exception {
+        jdbcTemplate.update("insert into users(login, password, roles) values ('RehashWrong', '{noop}Secret4', 'reader')");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("size", "1")
+                        .header("Authorization", basic("RehashWrong", "Secret5")))
+                .andExpect(status().isUnauthorized());
+
+        Assertions.assertEquals("{noop}Secret4", password("RehashWrong"));
+    }
+
+    private void login(String login, String password) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("size", "1")
+                        .header("Authorization", basic(login, password)))
+                .andExpect(status().isOk());
+    }
+
+    private String password(String login) {
+        return jdbcTemplate.queryForObject("select password from users where login = ?", String.class, login);
+    }
+
+    private static String basic(String login, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((login + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.itgirl.libraryproject.service;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.PageDto;
+import ru.itgirl.libraryproject.model.Author;
+import ru.itgirl.libraryproject.repository.AuthorRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuthorServiceQueryBudgetTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    AuthorService authorService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testGetAuthorById() {
+        AuthorDto authorDto = withinStatementBudget(1, () -> authorService.getAuthorById(3L));
+        Assertions.assertTrue(authorDto.getBooks().size() > 1);
+    }
+
+    @Test
+    public void testGetBySurnameV1() {
+        AuthorDto authorDto = withinStatementBudget(1, () -> authorService.getBySurnameV1("Толстой"));
+        Assertions.assertTrue(authorDto.getBooks().stream().allMatch(book -> book.getGenre() != null));
+    }
+
+    @Test
+    public void testGetBySurnameV2() {
+        // The native lookup plus one fetch of the books and their genres, however many books the author has
+        AuthorDto authorDto = withinStatementBudget(2, () -> authorService.getBySurnameV2("Толстой"));
+        Assertions.assertTrue(authorDto.getBooks().size() > 1);
+        Assertions.assertTrue(authorDto.getBooks().stream().allMatch(book -> book.getGenre() != null));
+    }
+
+    @Test
+    public void testGetBySurnameV3() {
+        AuthorDto authorDto = withinStatementBudget(1, () -> authorService.getBySurnameV3("Толстой"));
+        Assertions.assertTrue(authorDto.getBooks().size() > 1);
+    }
+
+    @Test
+    public void testGetAllAuthors() {
+        List<AuthorDto> authors = withinStatementBudget(1, () -> authorService.getAllAuthors());
+        Assertions.assertEquals(5, authors.size());
+    }
+
+    @Test
+    public void testGetAuthorsPage() {
+        PageDto<AuthorDto> page = withinStatementBudget(3, () -> authorService.getAuthorsPage(null, 5));
+        Assertions.assertEquals(5, page.getItems().size());
+    }
+
+    @Test
+    public void testStreamAllAuthors() {
+        List<AuthorDto> authors = new ArrayList<>();
+        withinStatementBudget(2, () -> {
+            authorService.streamAllAuthors(stream -> stream.forEach(authors::add));
+            return authors;
+        });
+        Assertions.assertEquals(5, authors.size());
+    }
+
+    // The DTO graphs live on dedicated finders, so other callers of findById keep the lazy associations
+    @Test
+    public void testFindByIdKeepsDefaultFetchPlan() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Author author = authorRepository.findById(3L).orElseThrow();
+            Assertions.assertFalse(Hibernate.isInitialized(author.getBooks()));
+        });
+    }
+}
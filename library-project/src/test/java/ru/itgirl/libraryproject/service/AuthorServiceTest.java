@@ -1,21 +1,27 @@
 package ru.itgirl.libraryproject.service;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import ru.itgirl.libraryproject.dto.AuthorCreateDto;
 import ru.itgirl.libraryproject.dto.AuthorDto;
 import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.PageDto;
 import ru.itgirl.libraryproject.model.Author;
 import ru.itgirl.libraryproject.model.Book;
 import ru.itgirl.libraryproject.repository.AuthorRepository;
+import ru.itgirl.libraryproject.repository.BatchDeleteCounts;
 
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -23,10 +29,19 @@ public class AuthorServiceTest {
 
     @Mock
     AuthorRepository authorRepository;
+    @Mock
+    CatalogNameFilter catalogNameFilter;
+    @Mock
+    CatalogDtoCache catalogDtoCache;
 
     @InjectMocks
     AuthorServiceImpl authorService;
 
+    @BeforeEach
+    public void passNameFilter() {
+        when(catalogNameFilter.mightContainAuthor(any())).thenReturn(true);
+    }
+
     @Test
     public void testGetAuthorById() {
         Long id = 1L;
@@ -34,12 +49,12 @@ public class AuthorServiceTest {
         String surname = "Doe";
         Set<Book> books = new HashSet<>();
 
-        Author author = new Author(id, name, surname, books);
+        Author author = new Author(id, name, surname, books, 0L);
 
-        when(authorRepository.findById(id)).thenReturn(Optional.of(author));
+        when(authorRepository.findWithBooksById(id)).thenReturn(Optional.of(author));
 
         AuthorDto authorDto = authorService.getAuthorById(id);
-        verify(authorRepository).findById(id);
+        verify(authorRepository).findWithBooksById(id);
         Assertions.assertEquals(authorDto.getId(), author.getId());
         Assertions.assertEquals(authorDto.getName(), author.getName());
         Assertions.assertEquals(authorDto.getSurname(), author.getSurname());
@@ -50,10 +65,10 @@ public class AuthorServiceTest {
     public void testGetAuthorByIdFailed() {
         Long id = 1L;
 
-        when(authorRepository.findById(id)).thenReturn(Optional.empty());
+        when(authorRepository.findWithBooksById(id)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(IllegalStateException.class, () -> authorService.getAuthorById(id));
-        verify(authorRepository).findById(id);
+        verify(authorRepository).findWithBooksById(id);
     }
 
     @Test
@@ -63,7 +78,7 @@ public class AuthorServiceTest {
         String surname = "Doe";
         Set<Book> books = new HashSet<>();
 
-        Author author = new Author(id, name, surname, books);
+        Author author = new Author(id, name, surname, books, 0L);
 
         when(authorRepository.findAuthorBySurname(surname)).thenReturn(Optional.of(author));
 
@@ -91,7 +106,7 @@ public class AuthorServiceTest {
         String surname = "Doe";
         Set<Book> books = new HashSet<>();
 
-        Author author = new Author(id, name, surname, books);
+        Author author = new Author(id, name, surname, books, 0L);
 
         when(authorRepository.findAuthorBySurnameBySql(surname)).thenReturn(Optional.of(author));
 
@@ -118,9 +133,9 @@ public class AuthorServiceTest {
         String name = "John";
         String surname = "Doe";
         Set<Book> books = new HashSet<>();
-        Author author = new Author(id, name, surname, books);
+        Author author = new Author(id, name, surname, books, 0L);
 
-        when(authorRepository.findOne(any(Specification.class)))
+        when(authorRepository.findOneWithBooks(any(Specification.class)))
                 .thenReturn(Optional.of(author));
 
         AuthorDto result = authorService.getBySurnameV3(surname);
@@ -129,18 +144,18 @@ public class AuthorServiceTest {
         Assertions.assertEquals(id, result.getId());
         Assertions.assertEquals(name, result.getName());
         Assertions.assertEquals(surname, result.getSurname());
-        verify(authorRepository).findOne(any(Specification.class));
+        verify(authorRepository).findOneWithBooks(any(Specification.class));
     }
 
     @Test
     public void testGetBySurnameV3NotFound() {
         String surname = "Doe";
 
-        when(authorRepository.findOne(any(Specification.class)))
+        when(authorRepository.findOneWithBooks(any(Specification.class)))
                 .thenReturn(Optional.empty());
 
         Assertions.assertThrows(IllegalStateException.class, () -> authorService.getBySurnameV3(surname));
-        verify(authorRepository).findOne(any(Specification.class));
+        verify(authorRepository).findOneWithBooks(any(Specification.class));
     }
 
 
@@ -175,10 +190,10 @@ public class AuthorServiceTest {
 
         AuthorUpdateDto authorUpdateDto = new AuthorUpdateDto(authorId, updatedName, updatedSurname);
 
-        Author existingAuthor = new Author (authorId, "Александр", "Пушкин", books);
+        Author existingAuthor = new Author (authorId, "Александр", "Пушкин", books, 0L);
         when(authorRepository.findById(authorId))
                 .thenReturn(Optional.of(existingAuthor));
-        when(authorRepository.save(any(Author.class)))
+        when(authorRepository.saveAndFlush(any(Author.class)))
                 .thenReturn(existingAuthor);
 
         AuthorDto authorDto = authorService.updateAuthor(authorUpdateDto);
@@ -191,7 +206,7 @@ public class AuthorServiceTest {
         Assertions.assertEquals(books.size(), authorDto.getBooks().size());
         Assertions.assertTrue(authorDto.getBooks().containsAll(books));
         verify(authorRepository).findById(authorId);
-        verify(authorRepository).save(any(Author.class));
+        verify(authorRepository).saveAndFlush(any(Author.class));
     }
 
     @Test
@@ -207,35 +222,44 @@ public class AuthorServiceTest {
         Assertions.assertThrows(IllegalStateException.class, () -> authorService.updateAuthor(authorUpdateDto));
 
         verify(authorRepository).findById(authorId);
-        verify(authorRepository, never()).save(any(Author.class));
+        verify(authorRepository, never()).saveAndFlush(any(Author.class));
     }
 
     @Test
     public void testDeleteAuthor() {
 
         Long id = 2L;
-        String name = "Николай";
-        String surname = "Гоголь";
-        Set<Book> books = new HashSet<>();
 
-        Author author = new Author(id, name, surname, books);
+        BatchDeleteCounts counts = mock(BatchDeleteCounts.class);
+        when(counts.getDeleted()).thenReturn(1L);
+        when(counts.deletedIds()).thenReturn(List.of(id));
+        when(counts.linkedIds()).thenReturn(List.of(3L));
+        when(authorRepository.bulkDeleteByIds(new Long[]{id})).thenReturn(counts);
+
+        authorService.deleteAuthor(id);
 
-        when(authorRepository.findById(id)).thenReturn(Optional.of(author));
-        doNothing().when(authorRepository).deleteById(id);
+        verify(authorRepository).bulkDeleteByIds(new Long[]{id});
+        verify(catalogDtoCache).authorsDeleted(List.of(id), List.of(3L));
+        verify(catalogDtoCache, never()).evictAll();
 
-        AuthorDto authorDto = authorService.deleteAuthor(id);
+    }
 
-        verify(authorRepository).deleteById(id);
+    @Test
+    public void testDeleteMissingAuthor() {
+        BatchDeleteCounts counts = mock(BatchDeleteCounts.class);
+        when(authorRepository.bulkDeleteByIds(new Long[]{99L})).thenReturn(counts);
 
+        Assertions.assertThrows(NotFoundException.class, () -> authorService.deleteAuthor(99L));
+        verifyNoInteractions(catalogDtoCache);
     }
 
     @Test
     public void testGetAllAuthor() {
         List<Author> authors = new ArrayList<>();
-        authors.add(new Author(1L, "Bill", "Novak", new HashSet<>()));
-        authors.add(new Author(2L, "Jake", "Rob", new HashSet<>()));
+        authors.add(new Author(1L, "Bill", "Novak", new HashSet<>(), 0L));
+        authors.add(new Author(2L, "Jake", "Rob", new HashSet<>(), 0L));
 
-        when(authorRepository.findAll()).thenReturn(authors);
+        when(authorRepository.findAllWithBooks()).thenReturn(authors);
 
         List<AuthorDto> authorDto = authorService.getAllAuthors();
 
@@ -245,8 +269,23 @@ public class AuthorServiceTest {
         Assertions.assertEquals("Jake", authorDto.get(1).getName());
         Assertions.assertEquals("Rob", authorDto.get(1).getSurname());
 
-        verify(authorRepository).findAll();
+        verify(authorRepository).findAllWithBooks();
     }
-}
 
+    @Test
+    public void testGetAuthorsPage() {
+        List<Author> authors = new ArrayList<>();
+        authors.add(new Author(1L, "Bill", "Novak", new HashSet<>(), 0L));
+        authors.add(new Author(2L, "Jake", "Rob", new HashSet<>(), 0L));
+
+        when(authorRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(authors);
 
+        PageDto<AuthorDto> page = authorService.getAuthorsPage(null, 1);
+
+        Assertions.assertEquals(1, page.getItems().size());
+        Assertions.assertEquals("Novak", page.getItems().get(0).getSurname());
+        Assertions.assertEquals(1L, PageCursor.decode(page.getNextCursor()));
+
+        verify(authorRepository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2));
+    }
+}
@@ -0,0 +1,80 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.BatchResultDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+public class BatchCreateTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorService authorService;
+
+    @AfterEach
+    public void removeCreatedRows() {
+        jdbcTemplate.update("delete from book where name like 'Пакетная книга %' or name like '% из партии'");
+        jdbcTemplate.update("delete from author where surname in ('Тургенев', 'Фет')");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testCreateBooksUsesJdbcBatches() {
+        List<BookCreateDto> books = IntStream.range(0, 500)
+                .mapToObj(i -> new BookCreateDto("Пакетная книга " + i, 1L + i % 4))
+                .toList();
+
+        BatchResultDto result = withinStatementBudget(50, () -> bookService.createBooks(books));
+
+        Assertions.assertEquals(500, result.getCreated());
+        Assertions.assertTrue(result.getErrors().isEmpty());
+        Assertions.assertEquals(500, result.getIds().stream().filter(Objects::nonNull).distinct().count());
+        Assertions.assertEquals(500, jdbcTemplate.queryForObject(
+                "select count(*) from book where name like 'Пакетная книга %'", Integer.class));
+    }
+
+    @Test
+    public void testCreateBooksReportsItemErrors() {
+        List<BookCreateDto> books = new ArrayList<>();
+        books.add(new BookCreateDto("Первая из партии", 1L));
+        books.add(new BookCreateDto(" ", 1L));
+        books.add(new BookCreateDto("Книга без жанра", 999L));
+        books.add(null);
+        books.add(new BookCreateDto("Последняя из партии", 2L));
+
+        BatchResultDto result = bookService.createBooks(books);
+
+        Assertions.assertEquals(2, result.getCreated());
+        Assertions.assertEquals(List.of(1, 2, 3), result.getErrors().stream().map(error -> error.getIndex()).toList());
+        Assertions.assertNotNull(result.getIds().get(0));
+        Assertions.assertNull(result.getIds().get(1));
+        Assertions.assertNotNull(result.getIds().get(4));
+    }
+
+    @Test
+    public void testCreateAuthorsAssignsIds() {
+        BatchResultDto result = authorService.createAuthors(List.of(
+                new AuthorCreateDto("Иван", "Тургенев"), new AuthorCreateDto("Афанасий", "Фет")));
+
+        Assertions.assertEquals(2, result.getCreated());
+        Assertions.assertEquals("Фет", jdbcTemplate.queryForObject(
+                "select surname from author where id = ?", String.class, result.getIds().get(1)));
+    }
+
+    @Test
+    public void testOversizedBatchRejected() {
+        List<BookCreateDto> books = Collections.nCopies(100_001, new BookCreateDto("Лишняя", 1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bookService.createBooks(books));
+    }
+}
@@ -0,0 +1,122 @@
+package ru.itgirl.libraryproject.service;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BookListItemDto;
+import ru.itgirl.libraryproject.dto.PageDto;
+import ru.itgirl.libraryproject.model.Book;
+import ru.itgirl.libraryproject.repository.BookRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookServiceQueryBudgetTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testGetBookByNameV1() {
+        BookDto bookDto = withinStatementBudget(1, () -> bookService.getBookByNameV1("Нос"));
+        Assertions.assertEquals("Рассказ", bookDto.getGenre());
+        Assertions.assertEquals("Гоголь", bookDto.getAuthors().get(0).getSurname());
+    }
+
+    @Test
+    public void testGetBookByNameV2() {
+        // The native lookup plus one fetch of the genre and authors, whatever the book's author count
+        BookDto bookDto = withinStatementBudget(2, () -> bookService.getBookByNameV2("Нос"));
+        Assertions.assertEquals("Рассказ", bookDto.getGenre());
+        Assertions.assertEquals("Гоголь", bookDto.getAuthors().get(0).getSurname());
+    }
+
+    @Test
+    public void testGetBookByNameV3() {
+        BookDto bookDto = withinStatementBudget(1, () -> bookService.getBookByNameV3("Нос"));
+        Assertions.assertEquals(1, bookDto.getAuthors().size());
+    }
+
+    @Test
+    public void testGetAllBooks() {
+        List<BookDto> books = withinStatementBudget(1, () -> bookService.getAllBooks());
+        Assertions.assertTrue(books.size() >= SEEDED_BOOKS);
+        Assertions.assertTrue(books.stream().allMatch(book -> book.getGenre() != null && book.getAuthors() != null));
+    }
+
+    @Test
+    public void testGetBooksPage() {
+        PageDto<BookDto> page = withinStatementBudget(2, () -> bookService.getBooksPage(null, 100));
+        Assertions.assertEquals(100, page.getItems().size());
+        Assertions.assertTrue(page.getItems().stream().allMatch(book -> book.getGenre() != null));
+    }
+
+    @Test
+    public void testGetBookListPage() {
+        PageDto<BookListItemDto> page = withinStatementBudget(1, () -> bookService.getBookListPage(null, 100));
+        Assertions.assertEquals(100, page.getItems().size());
+        Assertions.assertNotNull(page.getNextCursor());
+        Assertions.assertTrue(page.getItems().stream().allMatch(book -> book.getGenre() != null));
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+
+        PageDto<BookListItemDto> next = bookService.getBookListPage(page.getNextCursor(), 100);
+        Assertions.assertTrue(next.getItems().get(0).getId() > page.getItems().get(99).getId());
+    }
+
+    @Test
+    public void testStreamBookList() {
+        List<BookListItemDto> books = new ArrayList<>();
+        withinStatementBudget(1, () -> {
+            bookService.streamBookList(stream -> stream.forEach(books::add));
+            return books;
+        });
+        Assertions.assertTrue(books.size() >= SEEDED_BOOKS);
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+    }
+
+    @Test
+    public void testReadsNeitherFlushNorOutliveTheirTransaction() {
+        Assertions.assertTrue(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty());
+        statistics().clear();
+        bookService.getAllBooks();
+        bookService.getBooksPage(null, 100);
+        bookService.searchBooks("Нос", SearchMode.PREFIX, 0, 10);
+        Assertions.assertEquals(0, statistics().getFlushCount());
+        Assertions.assertEquals(3, statistics().getTransactionCount());
+    }
+
+    @Test
+    public void testStreamAllBooks() {
+        List<BookDto> books = new ArrayList<>();
+        // one cursor plus one author fetch per 500-row chunk
+        withinStatementBudget(3, () -> {
+            bookService.streamAllBooks(stream -> stream.forEach(books::add));
+            return books;
+        });
+        Assertions.assertTrue(books.size() >= SEEDED_BOOKS);
+    }
+
+    // The DTO graphs live on dedicated finders, so other callers of findById keep the lazy associations
+    @Test
+    public void testFindByIdKeepsDefaultFetchPlan() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Book book = bookRepository.findById(1L).orElseThrow();
+            Assertions.assertFalse(Hibernate.isInitialized(book.getGenre()));
+            Assertions.assertFalse(Hibernate.isInitialized(book.getAuthors()));
+        });
+    }
+}
@@ -2,21 +2,26 @@ package ru.itgirl.libraryproject.service;
 
 import org.checkerframework.checker.units.qual.A;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import ru.itgirl.libraryproject.dto.*;
 import ru.itgirl.libraryproject.model.Author;
 import ru.itgirl.libraryproject.model.Book;
 import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.repository.BatchDeleteCounts;
 import ru.itgirl.libraryproject.repository.BookRepository;
 import ru.itgirl.libraryproject.repository.GenreRepository;
 
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -26,20 +31,29 @@ public class BookServiceTest {
     BookRepository bookRepository;
     @Mock
     GenreRepository genreRepository;
+    @Mock
+    CatalogNameFilter catalogNameFilter;
+    @Mock
+    CatalogDtoCache catalogDtoCache;
 
     @InjectMocks
     BookServiceImpl bookService;
 
+    @BeforeEach
+    public void passNameFilter() {
+        when(catalogNameFilter.mightContainBook(any())).thenReturn(true);
+    }
+
     @Test
     public void testGetBookByNameV1() {
         Long id = 1L;
         String name = "Имя розы";
         Set<Book> books = new HashSet<>();
-        Genre genre = new Genre(6L, "Детектив", books);
+        Genre genre = new Genre(6L, "Детектив", books, 0L);
 
         Set<Author> authors = new HashSet<>();
 
-        Book book = new Book(id, name, genre, authors);
+        Book book = new Book(id, name, genre, authors, 0L);
 
         when(bookRepository.findBookByName(name)).thenReturn(Optional.of(book));
 
@@ -65,11 +79,11 @@ public class BookServiceTest {
         Long id = 4L;
         String name = "Мастер и Маргарита";
         Set<Book> books = new HashSet<>();
-        Genre genre = new Genre(2L, "Роман", books);
+        Genre genre = new Genre(2L, "Роман", books, 0L);
 
         Set<Author> authors = new HashSet<>();
 
-        Book book = new Book(id, name, genre, authors);
+        Book book = new Book(id, name, genre, authors, 0L);
 
         when(bookRepository.findBookByNameBySql(name)).thenReturn(Optional.of(book));
 
@@ -96,10 +110,10 @@ public class BookServiceTest {
         String name = "Имя розы";
         Set<Book> books = new HashSet<>();
         Set<Author> authors = new HashSet<>();
-        Genre genre = new Genre(6L, "Детектив", books);
-        Book book = new Book(id, name, genre, authors);
+        Genre genre = new Genre(6L, "Детектив", books, 0L);
+        Book book = new Book(id, name, genre, authors, 0L);
 
-        when(bookRepository.findOne(any(Specification.class)))
+        when(bookRepository.findOneWithAuthors(any(Specification.class)))
                 .thenReturn(Optional.of(book));
 
         BookDto result = bookService.getBookByNameV3(name);
@@ -107,17 +121,17 @@ public class BookServiceTest {
         Assertions.assertNotNull(result);
         Assertions.assertEquals(id, result.getId());
         Assertions.assertEquals(name, result.getName());
-        verify(bookRepository).findOne(any(Specification.class));
+        verify(bookRepository).findOneWithAuthors(any(Specification.class));
     }
 
     @Test
     public void testGetBookByNameV3NotFound() {
         String name = "Имя розы";
 
-        when(bookRepository.findOne(any(Specification.class)))
+        when(bookRepository.findOneWithAuthors(any(Specification.class)))
                 .thenReturn(Optional.empty());
         Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV3(name));
-        verify(bookRepository).findOne(any(Specification.class));
+        verify(bookRepository).findOneWithAuthors(any(Specification.class));
     }
 
 
@@ -168,9 +182,9 @@ public class BookServiceTest {
         genre.setName("Роман");
         when(genreRepository.findById(2L)).thenReturn(Optional.of(genre));
 
-        Book existingBook = new Book(bookId, "Алые паруса", genre, authors);
+        Book existingBook = new Book(bookId, "Алые паруса", genre, authors, 0L);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(existingBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(existingBook);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(existingBook);
 
         BookDto bookDto = bookService.updateBook(bookUpdateDto);
 
@@ -183,7 +197,7 @@ public class BookServiceTest {
 
 
         verify(bookRepository).findById(bookId);
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
     }
 
     @Test
@@ -199,28 +213,37 @@ public class BookServiceTest {
         Assertions.assertThrows(IllegalStateException.class, () -> bookService.updateBook(bookUpdateDto));
 
         verify(bookRepository).findById(bookId);
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
     }
 
     @Test
     public void testDeleteBook() {
 
         Long id = 17L;
-        String name = "Алые паруса";
         Long genre_id = 2L;
-        Set<Author> authors = new HashSet<>();
-        Set<Book> books = new HashSet<>();
-        Genre genre = new Genre(2L, "Роман", books);
 
-        Book book = new Book(id, name, genre, authors);
+        BatchDeleteCounts counts = mock(BatchDeleteCounts.class);
+        when(counts.getDeleted()).thenReturn(1L);
+        when(counts.deletedIds()).thenReturn(List.of(id));
+        when(counts.linkedIds()).thenReturn(List.of(3L));
+        when(counts.genreIds()).thenReturn(List.of(genre_id));
+        when(bookRepository.bulkDeleteByIds(new Long[]{id})).thenReturn(counts);
+
+        bookService.deleteBook(id);
 
-        when(bookRepository.findById(id)).thenReturn(Optional.of(book));
-        doNothing().when(bookRepository).deleteById(id);
+        verify(bookRepository).bulkDeleteByIds(new Long[]{id});
+        verify(catalogDtoCache).booksDeleted(List.of(id), List.of(3L), List.of(genre_id));
+        verify(catalogDtoCache, never()).evictAll();
 
-        BookDto bookDto = bookService.deleteBook(id);
+    }
 
-        verify(bookRepository).deleteById(id);
+    @Test
+    public void testDeleteMissingBook() {
+        BatchDeleteCounts counts = mock(BatchDeleteCounts.class);
+        when(bookRepository.bulkDeleteByIds(new Long[]{99L})).thenReturn(counts);
 
+        Assertions.assertThrows(NotFoundException.class, () -> bookService.deleteBook(99L));
+        verifyNoInteractions(catalogDtoCache);
     }
 
     @Test
@@ -228,12 +251,12 @@ public class BookServiceTest {
 
         List<Book> books = new ArrayList<>();
         Set<Book> allBooks = new HashSet<>();
-        Genre genre = new Genre(2L, "Роман", allBooks);
-        books.add(new Book(5L, "Детство", genre, new HashSet<>()));
-        books.add(new Book(6L, "Юность", genre, new HashSet<>()));
+        Genre genre = new Genre(2L, "Роман", allBooks, 0L);
+        books.add(new Book(5L, "Детство", genre, new HashSet<>(), 0L));
+        books.add(new Book(6L, "Юность", genre, new HashSet<>(), 0L));
         allBooks.addAll(books);
 
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findAllWithAuthors()).thenReturn(books);
 
         List<BookDto> bookDto = bookService.getAllBooks();
 
@@ -241,6 +264,50 @@ public class BookServiceTest {
         Assertions.assertEquals("Детство", bookDto.get(0).getName());
         Assertions.assertEquals("Юность", bookDto.get(1).getName());
 
-        verify(bookRepository).findAll();
+        verify(bookRepository).findAllWithAuthors();
+    }
+
+    @Test
+    public void testGetBooksPage() {
+        Set<Book> allBooks = new HashSet<>();
+        Genre genre = new Genre(2L, "Роман", allBooks, 0L);
+        List<Book> books = new ArrayList<>();
+        books.add(new Book(5L, "Детство", genre, new HashSet<>(), 0L));
+        books.add(new Book(6L, "Отрочество", genre, new HashSet<>(), 0L));
+        books.add(new Book(7L, "Юность", genre, new HashSet<>(), 0L));
+
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Pageable.class))).thenReturn(books);
+
+        PageDto<BookDto> page = bookService.getBooksPage(PageCursor.encode(4L), 2);
+
+        Assertions.assertEquals(2, page.getItems().size());
+        Assertions.assertEquals("Детство", page.getItems().get(0).getName());
+        Assertions.assertEquals("Отрочество", page.getItems().get(1).getName());
+        Assertions.assertEquals(6L, PageCursor.decode(page.getNextCursor()));
+
+        verify(bookRepository).findByIdGreaterThanOrderByIdAsc(4L, PageRequest.of(0, 3));
+    }
+
+    @Test
+    public void testGetBooksLastPage() {
+        Set<Book> allBooks = new HashSet<>();
+        Genre genre = new Genre(2L, "Роман", allBooks, 0L);
+        List<Book> books = new ArrayList<>();
+        books.add(new Book(7L, "Юность", genre, new HashSet<>(), 0L));
+
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(books);
+
+        PageDto<BookDto> page = bookService.getBooksPage(null, 1000);
+
+        Assertions.assertEquals(1, page.getItems().size());
+        Assertions.assertNull(page.getNextCursor());
+
+        verify(bookRepository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, PageCursor.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testGetBooksPageInvalidCursor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage("not-a-cursor", 10));
+        verify(bookRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any(Pageable.class));
     }
 }
@@ -0,0 +1,100 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.itgirl.libraryproject.dto.AuthorCreateDto;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.AuthorUpdateDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BookUpdateDto;
+
+@TestPropertySource(properties = "spring.cache.type=caffeine")
+public class CatalogDtoCacheTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorService authorService;
+
+    @Test
+    public void testBookLookupsAreCachedPerStrategy() {
+        BookDto bookDto = bookService.getBookByNameV1("Нос");
+        Assertions.assertEquals(bookDto, withinStatementBudget(0, () -> bookService.getBookByNameV1("Нос")));
+
+        // The native V2 query is not answered from the V1 entry
+        statistics().clear();
+        Assertions.assertEquals(bookDto, bookService.getBookByNameV2("Нос"));
+        Assertions.assertTrue(statistics().getPrepareStatementCount() > 0);
+        Assertions.assertEquals(bookDto, withinStatementBudget(0, () -> bookService.getBookByNameV2("Нос")));
+        bookService.getBookByNameV3("Нос");
+        Assertions.assertEquals(bookDto, withinStatementBudget(0, () -> bookService.getBookByNameV3("Нос")));
+    }
+
+    @Test
+    public void testAuthorLookupsCached() {
+        AuthorDto byId = authorService.getAuthorById(4L);
+        Assertions.assertEquals(byId, withinStatementBudget(0, () -> authorService.getAuthorById(4L)));
+        AuthorDto bySurname = authorService.getBySurnameV1("Булгаков");
+        Assertions.assertEquals(bySurname, withinStatementBudget(0, () -> authorService.getBySurnameV1("Булгаков")));
+        statistics().clear();
+        Assertions.assertEquals(bySurname.getId(), authorService.getBySurnameV2("Булгаков").getId());
+        Assertions.assertTrue(statistics().getPrepareStatementCount() > 0);
+    }
+
+    @Test
+    public void testCallersCannotChangeCachedDto() {
+        BookDto loaded = bookService.getBookByNameV1("Нос");
+        loaded.setName("Испорченный нос");
+        BookDto cached = bookService.getBookByNameV2("Нос");
+        cached.getAuthors().get(0).setSurname("Испорченный");
+
+        Assertions.assertNotSame(cached, bookService.getBookByNameV3("Нос"));
+        Assertions.assertEquals("Нос", bookService.getBookByNameV3("Нос").getName());
+        Assertions.assertEquals("Гоголь", bookService.getBookByNameV3("Нос").getAuthors().get(0).getSurname());
+    }
+
+    @Test
+    public void testBookUpdateEvictsRenamedBookAndItsAuthors() {
+        BookDto created = bookService.createBook(new BookCreateDto("Книга для кэша", 1L));
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, 1)", created.getId());
+        entityManagerFactory.getCache().evictAll();
+        bookService.getBookByNameV1("Книга для кэша");
+        AuthorDto pushkin = authorService.getAuthorById(1L);
+        Assertions.assertTrue(pushkin.getBooks().stream().anyMatch(book -> book.getId().equals(created.getId())));
+
+        bookService.updateBook(new BookUpdateDto(created.getId(), "Книга после кэша", 2L));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Книга для кэша"));
+        Assertions.assertTrue(authorService.getAuthorById(1L).getBooks().stream()
+                .anyMatch(book -> book.getName().equals("Книга после кэша") && book.getGenre().equals("Роман")));
+    }
+
+    @Test
+    public void testAuthorUpdateEvictsLinkedBooks() {
+        AuthorDto created = authorService.createAuthor(new AuthorCreateDto("Антон", "Чехов"));
+        BookDto book = bookService.createBook(new BookCreateDto("Каштанка", 1L));
+        jdbcTemplate.update("insert into author_book(book_id, author_id) values (?, ?)", book.getId(), created.getId());
+        entityManagerFactory.getCache().evictAll();
+        Assertions.assertEquals("Чехов", bookService.getBookByNameV1("Каштанка").getAuthors().get(0).getSurname());
+        authorService.getBySurnameV1("Чехов");
+
+        authorService.updateAuthor(new AuthorUpdateDto(created.getId(), "Антон", "Чехонте"));
+
+        Assertions.assertEquals("Чехонте", bookService.getBookByNameV1("Каштанка").getAuthors().get(0).getSurname());
+        Assertions.assertThrows(IllegalStateException.class, () -> authorService.getBySurnameV1("Чехов"));
+    }
+
+    @Test
+    public void testDeleteBookEvictsCachedDto() {
+        BookDto created = bookService.createBook(new BookCreateDto("Удаляемая книга", 3L));
+        bookService.getBookByNameV1("Удаляемая книга");
+
+        bookService.deleteBook(created.getId());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Удаляемая книга"));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.itgirl.libraryproject.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class CatalogExportTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    CatalogExportService catalogExportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void testExportBooksAsNdjson() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = catalogExportService.exportBooks(CatalogFormat.NDJSON, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        Assertions.assertEquals(jdbcTemplate.queryForObject("select count(*) from book", Long.class), exported);
+        Assertions.assertEquals(exported, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        Assertions.assertEquals("Война и мир", first.get("name").asText());
+        Assertions.assertEquals("Роман", first.get("genre").asText());
+        Assertions.assertEquals("Толстой", first.get("authors").get(0).get("surname").asText());
+        Assertions.assertFalse(first.get("authors").get(0).has("books"));
+        Assertions.assertTrue(lines.stream().map(this::readTree)
+                .filter(book -> book.get("name").asText().startsWith("Книга "))
+                .allMatch(book -> book.get("authors").size() == 2));
+    }
+
+    @Test
+    public void testExportAuthorsAsCsv() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = catalogExportService.exportAuthors(CatalogFormat.CSV, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        Assertions.assertEquals(jdbcTemplate.queryForObject("select count(*) from author", Long.class), exported);
+        Assertions.assertEquals("id,name,surname,books", lines.get(0));
+        Assertions.assertEquals(exported + 1, lines.size());
+        Assertions.assertTrue(lines.stream().anyMatch(line -> line.startsWith("3,Лев,Толстой,\"Война и мир; ")));
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
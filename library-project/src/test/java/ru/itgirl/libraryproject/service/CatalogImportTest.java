@@ -0,0 +1,124 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.dto.ImportJobDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@TestPropertySource(properties = {"library.import.chunk-size=2", "library.import.directory=target/import-test"})
+public class CatalogImportTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    CatalogImportService catalogImportService;
+
+    @Autowired
+    BookService bookService;
+
+    @AfterEach
+    public void removeImportedRows() {
+        jdbcTemplate.update("delete from author_book where book_id in (select id from book where name like 'Импорт%')");
+        jdbcTemplate.update("delete from book where name like 'Импорт%'");
+        jdbcTemplate.update("delete from author where surname in ('Чехов', 'Тургенев')");
+        jdbcTemplate.update("delete from import_job");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testImportNdjson() throws Exception {
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Импорт: Каштанка"));
+
+        ImportJobDto job = finished(catalogImportService.importCatalog(stream("""
+                {"name": "Импорт: Каштанка", "genre": "Рассказ", "authors": [{"name": "Антон", "surname": "Чехов"}]}
+                {"name": "Импорт: Сборник", "genre": "Рассказ", "authors": [{"name": "Антон", "surname": "Чехов"}, {"name": "Лев", "surname": "Толстой"}]}
+                {"name": "Импорт: Без жанра", "genre": "Поэма", "authors": []}
+                {"name": "Импорт: Чайка", "genre": "Драма", "authors": [{"name": "Антон", "surname": "Чехов"}]}
+                """), CatalogFormat.NDJSON));
+
+        Assertions.assertEquals("COMPLETED", job.getStatus());
+        Assertions.assertEquals(4, job.getRecordsRead());
+        Assertions.assertEquals(3, job.getBooksCreated());
+        Assertions.assertEquals(1, job.getAuthorsCreated());
+        Assertions.assertEquals(4, job.getLinksCreated());
+        Assertions.assertEquals(1, job.getRejected());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from author where surname = 'Чехов'", Integer.class));
+        Assertions.assertEquals("Чехов", bookService.getBookByNameV1("Импорт: Каштанка").getAuthors().get(0).getSurname());
+        Assertions.assertEquals(2, bookService.getBookByNameV1("Импорт: Сборник").getAuthors().size());
+
+        Long id = bookService.createBook(new BookCreateDto("Импорт: после COPY", 1L)).getId();
+        Assertions.assertNotNull(id);
+    }
+
+    @Test
+    public void testImportCsvFile() throws Exception {
+        Path directory = Files.createDirectories(Path.of("target/import-test"));
+        Files.writeString(directory.resolve("catalog.csv"), """
+                name,genre,authors
+                "Импорт: Муму",Рассказ,Иван Тургенев
+                "Импорт: Отцы и дети",Роман,"Иван Тургенев; Лев Толстой"
+                """);
+
+        ImportJobDto job = finished(catalogImportService.importFile("catalog.csv"));
+
+        Assertions.assertEquals("COMPLETED", job.getStatus());
+        Assertions.assertEquals("CSV", job.getFormat());
+        Assertions.assertEquals(2, job.getBooksCreated());
+        Assertions.assertEquals(1, job.getAuthorsCreated());
+        Assertions.assertEquals(3, job.getLinksCreated());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> catalogImportService.importFile("../pom.xml"));
+    }
+
+    @Test
+    public void testResumeAfterFailure() throws Exception {
+        String records = """
+                {"name": "Импорт: 1", "genre": "Роман", "authors": []}
+                {"name": "Импорт: 2", "genre": "Роман", "authors": []}
+                {"name": "Импорт: 3", "genre": "Роман", "authors": []}
+                """;
+
+        ImportJobDto failed = finished(catalogImportService.importCatalog(stream(records + "{\"name\": \n"),
+                CatalogFormat.NDJSON));
+
+        Assertions.assertEquals("FAILED", failed.getStatus());
+        Assertions.assertEquals(2, failed.getRecordsRead());
+        Assertions.assertNotNull(failed.getError());
+
+        ImportJobDto resumed = finished(catalogImportService.resumeImport(failed.getId(), stream(records
+                + "{\"name\": \"Импорт: 4\", \"genre\": \"Роман\", \"authors\": []}\n")));
+
+        Assertions.assertEquals("COMPLETED", resumed.getStatus());
+        Assertions.assertEquals(4, resumed.getRecordsRead());
+        Assertions.assertEquals(4, resumed.getBooksCreated());
+        Assertions.assertEquals(4, jdbcTemplate.queryForObject(
+                "select count(distinct name) from book where name like 'Импорт: _'", Integer.class));
+        Assertions.assertEquals(4, jdbcTemplate.queryForObject(
+                "select count(*) from book where name like 'Импорт: _'", Integer.class));
+    }
+
+    // Imports run on the imports bulkhead, so the job is polled until it has left the queue and finished
+    private ImportJobDto finished(ImportJobDto job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        ImportJobDto current = job;
+        while (Set.of("QUEUED", "RUNNING").contains(current.getStatus())) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Import job did not finish");
+            Thread.sleep(20);
+            current = catalogImportService.getImportJob(job.getId());
+        }
+        return current;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
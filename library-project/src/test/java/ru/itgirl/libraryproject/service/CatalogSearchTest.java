@@ -0,0 +1,98 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+
+import java.util.List;
+
+public class CatalogSearchTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorService authorService;
+
+    @AfterEach
+    public void removeLeftovers() {
+        jdbcTemplate.update("delete from book where name like 'Поиск%' or name = 'Находки'");
+        jdbcTemplate.update("delete from author where surname like 'Поиск%'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testSearchBooksByPrefix() {
+        List<BookDto> books = bookService.searchBooks("войн", SearchMode.PREFIX, 0, 10);
+        Assertions.assertEquals(1, books.size());
+        Assertions.assertEquals("Война и мир", books.get(0).getName());
+        Assertions.assertEquals("Толстой", books.get(0).getAuthors().get(0).getSurname());
+    }
+
+    @Test
+    public void testSearchBooksContaining() {
+        List<BookDto> books = bookService.searchBooks("НАКАЗ", SearchMode.CONTAINS, 0, 10);
+        Assertions.assertEquals(1, books.size());
+        Assertions.assertEquals("Преступление и наказание", books.get(0).getName());
+    }
+
+    @Test
+    public void testSearchBooksEscapesWildcards() {
+        Assertions.assertTrue(bookService.searchBooks("%", SearchMode.CONTAINS, 0, 10).isEmpty());
+        Assertions.assertTrue(bookService.searchBooks("_ос", SearchMode.PREFIX, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchBooksFullText() {
+        List<BookDto> books = bookService.searchBooks("войны", SearchMode.FULL_TEXT, 0, 10);
+        Assertions.assertEquals("Война и мир", books.get(0).getName());
+    }
+
+    @Test
+    public void testSearchBooksPaginated() {
+        List<BookDto> first = bookService.searchBooks("книга 1", SearchMode.PREFIX, 0, 5);
+        List<BookDto> second = bookService.searchBooks("книга 1", SearchMode.PREFIX, 1, 5);
+        Assertions.assertEquals(List.of("Книга 1", "Книга 10", "Книга 100", "Книга 101", "Книга 102"),
+                first.stream().map(BookDto::getName).toList());
+        Assertions.assertEquals(5, second.size());
+        Assertions.assertTrue(second.stream().noneMatch(first::contains));
+    }
+
+    // The best matches are inserted last, after more than a thousand weaker ones
+    @Test
+    public void testSearchRanksBeyondThousandMatches() {
+        jdbcTemplate.update("insert into book(name, genre_id) select 'Поиск и находка ' || g, 1 from generate_series(1, 1200) g");
+        jdbcTemplate.update("insert into book(name, genre_id) values ('Поиск', 1), ('Поиск, поиск, поиск', 1), ('Находки', 1)");
+        jdbcTemplate.update("insert into author(name, surname) select 'Имя', 'Поисковая-' || g from generate_series(1, 1200) g");
+        jdbcTemplate.update("insert into author(name, surname) values ('Имя', 'Поиск')");
+
+        Assertions.assertEquals("Поиск", bookService.searchBooks("поиск", SearchMode.CONTAINS, 0, 5).get(0).getName());
+        Assertions.assertEquals("Поиск, поиск, поиск", bookService.searchBooks("поиск", SearchMode.FULL_TEXT, 0, 5).get(0).getName());
+        Assertions.assertEquals("Находки", bookService.searchBooks("находки", SearchMode.FUZZY, 0, 5).get(0).getName());
+        Assertions.assertEquals("Поиск", authorService.searchAuthors("поиск", SearchMode.CONTAINS, 0, 5).get(0).getSurname());
+        Assertions.assertEquals(2, bookService.searchBooks("поиск", SearchMode.CONTAINS, 240, 5).size());
+    }
+
+    @Test
+    public void testSearchAuthorsFuzzy() {
+        List<AuthorDto> authors = authorService.searchAuthors("Толстй", SearchMode.FUZZY, 0, 10);
+        Assertions.assertEquals("Толстой", authors.get(0).getSurname());
+        Assertions.assertFalse(authors.get(0).getBooks().isEmpty());
+    }
+
+    @Test
+    public void testSearchAuthorsByPrefix() {
+        List<AuthorDto> authors = authorService.searchAuthors("бул", SearchMode.PREFIX, 0, 10);
+        Assertions.assertEquals(1, authors.size());
+        Assertions.assertEquals("Булгаков", authors.get(0).getSurname());
+    }
+
+    @Test
+    public void testSearchRejectsBlankQuery() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks(" ", SearchMode.PREFIX, 0, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> authorService.searchAuthors("Гоголь", SearchMode.PREFIX, -1, 10));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.GenreDto;
+import ru.itgirl.libraryproject.model.Genre;
+import ru.itgirl.libraryproject.repository.GenreRepository;
+
+public class GenreServiceQueryBudgetTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    GenreService genreService;
+
+    @Autowired
+    GenreRepository genreRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testGetGenreById() {
+        GenreDto genreDto = withinStatementBudget(1, () -> genreService.getGenreById(1L));
+        Assertions.assertEquals(0, statistics().getEntityLoadCount());
+        Assertions.assertTrue(genreDto.getBooks().size() >= SEEDED_BOOKS / 4);
+        Assertions.assertTrue(genreDto.getBooks().stream().allMatch(book -> !book.getAuthors().isEmpty()));
+    }
+
+    @Test
+    public void testGetGenreByIdMatchesEntityGraph() {
+        Assertions.assertEquals(loadThroughEntities(2L), genreService.getGenreById(2L));
+    }
+
+    @Test
+    public void testGetGenreByIdNotFound() {
+        Assertions.assertThrows(IllegalStateException.class, () -> genreService.getGenreById(-1L));
+    }
+
+    private GenreDto loadThroughEntities(Long id) {
+        return transactionTemplate.execute(status -> {
+            Genre genre = genreRepository.findById(id).orElseThrow();
+            return GenreDto.builder()
+                    .id(genre.getId())
+                    .name(genre.getName())
+                    .books(genre.getBooks().stream()
+                            .sorted((left, right) -> left.getId().compareTo(right.getId()))
+                            .map(book -> BookDto.builder()
+                                    .name(book.getName())
+                                    .id(book.getId())
+                                    .authors(book.getAuthors().stream()
+                                            .sorted((left, right) -> left.getId().compareTo(right.getId()))
+                                            .map(author -> AuthorDto.builder()
+                                                    .name(author.getName())
+                                                    .surname(author.getSurname())
+                                                    .id(author.getId())
+                                                    .build())
+                                            .toList())
+                                    .build())
+                            .toList())
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package ru.itgirl.libraryproject.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Supplier;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.cache.type=none",
+        "zonky.test.database.postgres.initdb.properties.lc-ctype=C.UTF-8"})
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+public abstract class QueryBudgetTestSupport {
+
+    protected static final int SEEDED_BOOKS = 600;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void seedCatalog() {
+        Integer books = jdbcTemplate.queryForObject("select count(*) from book", Integer.class);
+        if (books != null && books >= SEEDED_BOOKS) {
+            return;
+        }
+        jdbcTemplate.update("insert into book(name, genre_id) select 'Книга ' || g, 1 + g % 4 "
+                + "from generate_series(1, ?) g", SEEDED_BOOKS);
+        jdbcTemplate.update("insert into author_book(book_id, author_id) select b.id, 1 + b.n % 5 "
+                + "from (select id, row_number() over (order by id) n from book where name like 'Книга %') b");
+        jdbcTemplate.update("insert into author_book(book_id, author_id) select b.id, 1 + (b.n + 1) % 5 "
+                + "from (select id, row_number() over (order by id) n from book where name like 'Книга %') b");
+    }
+
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    protected <T> T withinStatementBudget(long budget, Supplier<T> call) {
+        Statistics statistics = statistics();
+        statistics.clear();
+        T result = call.get();
+        long statements = statistics.getPrepareStatementCount();
+        Assertions.assertTrue(statements <= budget,
+                () -> "Expected at most " + budget + " SQL statements, but " + statements + " were executed");
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.itgirl.libraryproject.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itgirl.libraryproject.dto.AuthorDto;
+import ru.itgirl.libraryproject.dto.BookCreateDto;
+import ru.itgirl.libraryproject.dto.BookDto;
+import ru.itgirl.libraryproject.dto.BookUpdateDto;
+import ru.itgirl.libraryproject.repository.GenreRepository;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class SecondLevelCacheTest extends QueryBudgetTestSupport {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorService authorService;
+
+    @Autowired
+    GenreRepository genreRepository;
+
+    @Test
+    public void testGenreServedFromCache() {
+        genreRepository.findById(2L);
+        Assertions.assertEquals("Роман", withinStatementBudget(0, () -> genreRepository.findById(2L)).orElseThrow().getName());
+        Assertions.assertTrue(statistics().getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    public void testBookByNameServedFromQueryCache() {
+        bookService.getBookByNameV1("Мастер и Маргарита");
+        BookDto bookDto = withinStatementBudget(0, () -> bookService.getBookByNameV1("Мастер и Маргарита"));
+        Assertions.assertEquals("Булгаков", bookDto.getAuthors().get(0).getSurname());
+        Assertions.assertTrue(statistics().getQueryCacheHitCount() > 0);
+
+        bookService.getBookByNameV3("Мастер и Маргарита");
+        withinStatementBudget(0, () -> bookService.getBookByNameV3("Мастер и Маргарита"));
+    }
+
+    @Test
+    public void testAuthorBySurnameServedFromQueryCache() {
+        authorService.getBySurnameV1("Гоголь");
+        AuthorDto authorDto = withinStatementBudget(0, () -> authorService.getBySurnameV1("Гоголь"));
+        Assertions.assertTrue(authorDto.getBooks().stream().anyMatch(book -> book.getName().equals("Нос")));
+    }
+
+    @Test
+    public void testUpdateInvalidatesCachedLookups() {
+        BookDto created = bookService.createBook(new BookCreateDto("Кэшируемая книга", 3L));
+        bookService.getBookByNameV1("Кэшируемая книга");
+
+        bookService.updateBook(new BookUpdateDto(created.getId(), "Переименованная книга", 4L));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getBookByNameV1("Кэшируемая книга"));
+        Assertions.assertEquals("Драма", bookService.getBookByNameV1("Переименованная книга").getGenre());
+    }
+
+    @Test
+    public void testCacheStatisticsRegistered() throws MalformedObjectNameException {
+        ObjectName statistics = new ObjectName("javax.cache:type=CacheStatistics,*");
+        Assertions.assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(statistics, null).stream()
+                .anyMatch(name -> name.toString().contains("ru.itgirl.libraryproject.model.Book")));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.itgirl.libraryproject.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// The real Tomcat and Hikari pool on a local PostgreSQL: the embedded-database test support would replace the pool
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cache.type=none",
+        "library.threads.virtual=true"})
+@DirtiesContext
+public class VirtualThreadConfigTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Test
+    public void testRequestsAndTasksRunOnVirtualThreads() throws Exception {
+        Executor requestExecutor = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector()
+                .getProtocolHandler().getExecutor();
+        CompletableFuture<Boolean> request = new CompletableFuture<>();
+        requestExecutor.execute(() -> request.complete(Thread.currentThread().isVirtual()));
+
+        Assertions.assertTrue(request.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual())
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    // Far more concurrent requests than connections: they wait on the semaphore, and every permit comes back
+    @Test
+    public void testConcurrentRequestsShareThePool() throws Exception {
+        BoundedDataSource boundedDataSource = Assertions.assertInstanceOf(BoundedDataSource.class, dataSource);
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        Assertions.assertEquals(10, poolSize);
+        Assertions.assertEquals(poolSize, boundedDataSource.getAvailablePermits());
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest lookup = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/book?name="
+                        + URLEncoder.encode("Нос", StandardCharsets.UTF_8)))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString("InnaVol:Password1".getBytes(StandardCharsets.UTF_8)))
+                .build();
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < poolSize * 10; i++) {
+                statuses.add(clients.submit(() -> client.send(lookup, HttpResponse.BodyHandlers.discarding())
+                        .statusCode()));
+            }
+        }
+
+        for (Future<Integer> status : statuses) {
+            Assertions.assertEquals(200, status.get());
+        }
+        Assertions.assertEquals(poolSize, boundedDataSource.getAvailablePermits());
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder()
+                    .setLocaleConfig("lc-ctype", "C.UTF-8")
+                    .start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start an embedded PostgreSQL", e);
+        }
+    }
+}